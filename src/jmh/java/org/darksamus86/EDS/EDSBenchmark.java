@@ -0,0 +1,40 @@
+package org.darksamus86.EDS;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Подпись и проверка: хеш всего сообщения + RSA над 32-битным хешем
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class EDSBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private EDS eds;
+    private String message;
+    private String signature;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        eds = new EDS(BenchmarkData.RSA_E + "," + BenchmarkData.RSA_N, BenchmarkData.RSA_D + "," + BenchmarkData.RSA_N);
+        message = BenchmarkData.text(size);
+        signature = eds.signMessage(message);
+    }
+
+    @Benchmark
+    public String signMessage() {
+        return eds.signMessage(message);
+    }
+
+    @Benchmark
+    public boolean verifyMessage() {
+        return eds.verifyMessage(message, signature);
+    }
+}
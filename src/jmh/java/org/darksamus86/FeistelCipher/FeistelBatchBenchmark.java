@@ -0,0 +1,45 @@
+package org.darksamus86.FeistelCipher;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Много коротких записей (50–500 байт): encrypt по одной против encryptAll одним пакетом
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class FeistelBatchBenchmark {
+
+    @Param({"1000", "100000"})
+    public int records;
+
+    private String key;
+    private List<String> plaintexts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        key = BenchmarkData.text(32);
+        Random rnd = new Random(42);
+        plaintexts = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) plaintexts.add(BenchmarkData.text(50 + rnd.nextInt(451)));
+    }
+
+    @Benchmark
+    public List<String> encryptEach() {
+        List<String> out = new ArrayList<>(plaintexts.size());
+        for (String p : plaintexts) out.add(FeistelCipher.encrypt(p, key));
+        return out;
+    }
+
+    @Benchmark
+    public List<String> encryptAll() {
+        return FeistelCipher.encryptAll(plaintexts, key);
+    }
+}
@@ -0,0 +1,40 @@
+package org.darksamus86.FeistelCipher;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Feistel ECB: текст -> HEX и обратно
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class FeistelBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String key;
+    private String plaintext;
+    private String cipherHex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        key = BenchmarkData.text(32);
+        plaintext = BenchmarkData.text(size);
+        cipherHex = FeistelCipher.encrypt(plaintext, key);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return FeistelCipher.encrypt(plaintext, key);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return FeistelCipher.decrypt(cipherHex, key);
+    }
+}
@@ -0,0 +1,43 @@
+package org.darksamus86.Hash;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Много коротких ключей (8–64 байта): Hasher по одному против hashAll одним пакетом
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class HashBatchBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int keys;
+
+    private byte[][] messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        messages = new byte[keys][];
+        for (int i = 0; i < keys; i++) {
+            messages[i] = new byte[8 + rnd.nextInt(57)];
+            rnd.nextBytes(messages[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] hashEach() {
+        int[] out = new int[messages.length];
+        for (int i = 0; i < messages.length; i++) out[i] = new Hasher(0x12345678).update(messages[i]).digest();
+        return out;
+    }
+
+    @Benchmark
+    public int[] hashAll() {
+        return Hash.hashAll(0x12345678, messages);
+    }
+}
@@ -0,0 +1,31 @@
+package org.darksamus86.Hash;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Hash.hash над текстовым сообщением (UTF-8) с фиксированным IV
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class HashBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        message = BenchmarkData.text(size);
+    }
+
+    @Benchmark
+    public String hash() {
+        return Hash.hash("0x12345678", message);
+    }
+}
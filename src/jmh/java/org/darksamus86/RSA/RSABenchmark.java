@@ -0,0 +1,38 @@
+package org.darksamus86.RSA;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// RSA.encrypt / RSA.decrypt посимвольно на фиксированной паре ключей
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class RSABenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String message;
+    private String cipherHex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        message = BenchmarkData.text(size);
+        cipherHex = RSA.encrypt(message, BenchmarkData.RSA_E, BenchmarkData.RSA_N);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return RSA.encrypt(message, BenchmarkData.RSA_E, BenchmarkData.RSA_N);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return RSA.decrypt(cipherHex, BenchmarkData.RSA_D, BenchmarkData.RSA_N);
+    }
+}
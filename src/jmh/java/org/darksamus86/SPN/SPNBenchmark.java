@@ -0,0 +1,56 @@
+package org.darksamus86.SPN;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.darksamus86.encryption_mode.EncryptionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.List;
+
+// SPN ECB/CBC над строкой бит сообщения, дополненной PKCS#7 до 512 бит
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class SPNBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private List<String> roundKeys;
+    private String iv;
+    private String plainBits;
+    private String ecbCipher;
+    private String cbcCipher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        roundKeys = SPN.roundKeys(BenchmarkData.keyBits(256));
+        iv = BenchmarkData.keyBits(128);
+        plainBits = EncryptionMode.pkcs7Pad(BenchmarkData.bits(size), 512);
+        ecbCipher = SPN.ecbEncrypt(plainBits, roundKeys);
+        cbcCipher = SPN.cbcEncrypt(plainBits, roundKeys, iv);
+    }
+
+    @Benchmark
+    public String ecbEncrypt() {
+        return SPN.ecbEncrypt(plainBits, roundKeys);
+    }
+
+    @Benchmark
+    public String ecbDecrypt() {
+        return SPN.ecbDecrypt(ecbCipher, roundKeys);
+    }
+
+    @Benchmark
+    public String cbcEncrypt() {
+        return SPN.cbcEncrypt(plainBits, roundKeys, iv);
+    }
+
+    @Benchmark
+    public String cbcDecrypt() {
+        return SPN.cbcDecrypt(cbcCipher, roundKeys, iv);
+    }
+}
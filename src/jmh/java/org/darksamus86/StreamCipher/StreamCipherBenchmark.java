@@ -0,0 +1,33 @@
+package org.darksamus86.StreamCipher;
+
+import org.darksamus86.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// A5/1: a5Process пакетно-приватный, поэтому бенчмарк лежит в том же пакете
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class StreamCipherBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String keyBits;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyBits = BenchmarkData.keyBits(64);
+        text = BenchmarkData.text(size);
+    }
+
+    @Benchmark
+    public String a5Process() {
+        return StreamCipher.a5Process(text, keyBits);
+    }
+}
@@ -0,0 +1,49 @@
+package org.darksamus86.benchmarks;
+
+import org.darksamus86.encryption_mode.PackedBits;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Воспроизводимые входные данные для бенчмарков: одинаковый размер — одинаковое содержимое.
+ * Размеры сообщений (@Param size) во всех бенчмарках: 16 Б, 1 КБ, 64 КБ, 1 МБ, 16 МБ.
+ */
+public final class BenchmarkData {
+
+    // без символов 0-9 и a-f, чтобы Hash.hash не принял текст за двоичный/HEX/десятичный ввод
+    private static final String ALPHABET = "ghijklmnopqrstuvwxyz";
+
+    // фиксированная пара RSA (p = 211, q = 223, e = 11), чтобы не зависеть от RSA.generateKeys()
+    public static final long RSA_N = 211L * 223L;
+    public static final long RSA_E = 11;
+    public static final long RSA_D = BigInteger.valueOf(RSA_E)
+            .modInverse(BigInteger.valueOf(210L * 222L)).longValueExact();
+
+    private BenchmarkData() {
+    }
+
+    public static byte[] bytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    // ASCII-текст: один символ — один байт
+    public static String text(int size) {
+        Random rnd = new Random(size);
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) sb.append(ALPHABET.charAt(rnd.nextInt(ALPHABET.length())));
+        return sb.toString();
+    }
+
+    // строка '0'/'1' длиной 8 * size
+    public static String bits(int size) {
+        return PackedBits.toBits(PackedBits.fromBytes(bytes(size), 0, size), size * 8);
+    }
+
+    // фиксированный ключ из '0'/'1' заданной длины
+    public static String keyBits(int nBits) {
+        return bits((nBits + 7) / 8).substring(0, nBits);
+    }
+}
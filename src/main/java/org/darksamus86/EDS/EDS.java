@@ -1,12 +1,23 @@
 package org.darksamus86.EDS;
 
 import org.darksamus86.Hash.Hash;
+import org.darksamus86.Hash.TreeHash;
 import org.darksamus86.RSA.RSA;
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class EDS {
 
     // фиксированный IV для хеш-функции (как у вас было)
     private static final String FIXED_IV_HEX = "0x12345678";
+    private static final TreeHash DOCUMENT_HASH = new TreeHash(Hash.parseIv(FIXED_IV_HEX));
+
+    // метрики подписи и проверки (OperationMetrics; выключены по умолчанию)
+    private static final OperationStats SIGN = OperationMetrics.operation("EDS", "sign");
+    private static final OperationStats VERIFY = OperationMetrics.operation("EDS", "verify");
 
     private final String publicKey;   // формат "e,n"
     private final String privateKey;  // формат "d,n"
@@ -72,13 +83,11 @@ public class EDS {
      * Метод НЕ печатает ничего.
      */
     public String signMessage(String message) {
+        long t0 = OperationMetrics.start();
         String hashBits = computeHashBits(message); // например "010101..."
-        long[] priv = parseKeyPair(privateKey);
-        long d = priv[0];
-        long n = priv[1];
-        // Используем вашу RSA.encrypt: он принимает строку и (e,n) или (d,n).
-        // Возвращаем hex-строку, которую генерирует RSA.encrypt
-        return RSA.encrypt(hashBits, d, n);
+        String signature = signHashBits(hashBits);
+        OperationMetrics.record(SIGN, t0, message.length(), signature.length() / 2);
+        return signature;
     }
 
     /**
@@ -88,14 +97,49 @@ public class EDS {
      *
      */
     public boolean verifyMessage(String message, String signatureHex) {
+        long t0 = OperationMetrics.start();
+        boolean ok = verifyHashBits(computeHashBits(message), signatureHex);
+        OperationMetrics.record(VERIFY, t0, message.length() + signatureHex.length() / 2, 1);
+        return ok;
+    }
+
+    // ---------------- Подпись больших документов ----------------
+    // Документ хешируется деревом (TreeHash: листья по 64 КБ параллельно, IV тот же), подписывается корень.
+    // Подпись документа не совпадает с signMessage от того же текста: это другая хеш-функция.
+
+    public static TreeHash documentHash() {
+        return DOCUMENT_HASH;
+    }
+
+    public String signDocument(Path file) throws IOException {
+        return signTree(DOCUMENT_HASH.tree(file));
+    }
+
+    public boolean verifyDocument(Path file, String signatureHex) throws IOException {
+        return verifyTree(DOCUMENT_HASH.tree(file), signatureHex);
+    }
+
+    // дерево от documentHash(), например после Tree.updateLeaf — без повторного чтения документа
+    public String signTree(TreeHash.Tree tree) {
+        return signHashBits(tree.rootBits());
+    }
+
+    public boolean verifyTree(TreeHash.Tree tree, String signatureHex) {
+        return verifyHashBits(tree.rootBits(), signatureHex);
+    }
+
+    // Используем RSA.encrypt: он принимает строку и (e,n) или (d,n); возвращает hex-строку
+    private String signHashBits(String hashBits) {
+        long[] priv = parseKeyPair(privateKey);
+        return RSA.encrypt(hashBits, priv[0], priv[1]);
+    }
+
+    // RSA.decrypt вернёт строку, которая была зашифрована (то есть строку хеша)
+    private boolean verifyHashBits(String hashBits, String signatureHex) {
         long[] pub = parseKeyPair(publicKey);
-        long e = pub[0];
-        long n = pub[1];
-        // RSA.decrypt вернёт строку, которая была зашифрована (то есть строку хеша)
-        String decrypted = RSA.decrypt(signatureHex, e, n);
-        String expectedHash = computeHashBits(message);
-        return expectedHash.equals(decrypted);
+        return hashBits.equals(RSA.decrypt(signatureHex, pub[0], pub[1]));
     }
+
     public static void main(String[] args) {
         java.util.Scanner scanner = new java.util.Scanner(System.in);
 
@@ -1,6 +1,19 @@
 package org.darksamus86.FeistelCipher;
 
+import org.darksamus86.encryption_mode.BatchCipher;
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.CtrMode;
 import org.darksamus86.encryption_mode.EncryptionMode;
+import org.darksamus86.encryption_mode.FeistelEngine;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.darksamus86.encryption_mode.ModeEngine;
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
+import org.darksamus86.encryption_mode.RoundKeyCache;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import java.util.Scanner;
@@ -11,48 +24,169 @@ public class FeistelCipher {
     private static final int BLOCK_SIZE = 512; // размер блока в битах
     private static final int ROUND_KEY_SIZE = 256; // размер ключа раунда
 
+    // --- Метрики операций (OperationMetrics; выключены по умолчанию) ---
+    private static final OperationStats ECB_ENCRYPT = OperationMetrics.operation("Feistel", "ecbEncrypt");
+    private static final OperationStats ECB_DECRYPT = OperationMetrics.operation("Feistel", "ecbDecrypt");
+    private static final OperationStats CTR_ENCRYPT = OperationMetrics.operation("Feistel", "ctrEncrypt");
+    private static final OperationStats CTR_DECRYPT = OperationMetrics.operation("Feistel", "ctrDecrypt");
+    private static final OperationStats ECB_ENCRYPT_BYTES = OperationMetrics.operation("Feistel", "ecbEncryptBytes");
+    private static final OperationStats ECB_DECRYPT_BYTES = OperationMetrics.operation("Feistel", "ecbDecryptBytes");
+
+    // --- Раундовые ключи: разворачиваются один раз на ключ и берутся из LRU-кэша ---
+    static List<String> roundKeys(String keyBits) {
+        return RoundKeyCache.shared().roundKeys(keyBits, NUM_ROUNDS, ROUND_KEY_SIZE);
+    }
+
+    // сеть, скомпилированная под ключ: без строк на каждом раунде
+    static FeistelEngine engine(String keyBits) {
+        return FeistelEngine.compile(roundKeys(keyBits));
+    }
+
+    // Feistel как BlockCipher (блок 64 байта) для режимов ModeEngine
+    public static BlockCipher blockCipher(String keyBits) {
+        return engine(keyBits);
+    }
+
+    // упакованные раундовые ключи для byte[]-API
+    public static KeySchedule keySchedule(String keyBits) {
+        return KeySchedule.of(roundKeys(keyBits));
+    }
+
     // --- Шифрование блока Feistel ---
     public static String encryptBlock(String blockBits, String keyBits) {
-        List<String> roundKeys = EncryptionMode.generateRoundKeys(keyBits, NUM_ROUNDS, ROUND_KEY_SIZE);
-        return EncryptionMode.feistelEncryptBlock(blockBits, roundKeys);
+        return EncryptionMode.feistelEncryptBlock(blockBits, roundKeys(keyBits));
     }
 
     // --- Расшифровка блока Feistel ---
     public static String decryptBlock(String blockBits, String keyBits) {
-        List<String> roundKeys = EncryptionMode.generateRoundKeys(keyBits, NUM_ROUNDS, ROUND_KEY_SIZE);
-        return EncryptionMode.feistelDecryptBlock(blockBits, roundKeys);
+        return EncryptionMode.feistelDecryptBlock(blockBits, roundKeys(keyBits));
     }
 
-    // --- Шифрование текста ---
+    // --- Шифрование текста (ECB; длинные тексты шифруются параллельно, см. ParallelBlockEngine) ---
     public static String encrypt(String plaintext, String key) {
-        String bits = EncryptionMode.textToBits(plaintext);
-        String keyBits = EncryptionMode.textToBits(key);
-        List<String> blocks = EncryptionMode.splitIntoBlocks(bits, BLOCK_SIZE);
-
-        StringBuilder cipherBits = new StringBuilder();
-        for (String block : blocks) {
-            if (block.length() < BLOCK_SIZE) {
-                while (block.length() < BLOCK_SIZE) block += "0";
-            }
-            cipherBits.append(encryptBlock(block, keyBits));
-        }
-        return EncryptionMode.bitsToHex(cipherBits.toString());
+        String cipherBits = ecbEncryptBits(EncryptionMode.textToBits(plaintext), EncryptionMode.textToBits(key));
+        return EncryptionMode.bitsToHex(cipherBits);
     }
 
     // --- Расшифровка текста ---
     public static String decrypt(String cipherHex, String key) {
-        String cipherBits = EncryptionMode.hexToBits(cipherHex);
-        String keyBits = EncryptionMode.textToBits(key);
-        List<String> blocks = EncryptionMode.splitIntoBlocks(cipherBits, BLOCK_SIZE);
-
-        StringBuilder plainBits = new StringBuilder();
-        for (String block : blocks) {
-            if (block.length() < BLOCK_SIZE) {
-                while (block.length() < BLOCK_SIZE) block += "0";
+        String plainBits = ecbDecryptBits(EncryptionMode.hexToBits(cipherHex), EncryptionMode.textToBits(key));
+        return EncryptionMode.bitsToText(plainBits);
+    }
+
+    // --- Пакетное шифрование множества коротких записей ---
+    // Ключ разбирается и раундовые ключи строятся один раз на пакет; записи шифруются параллельно (BatchCipher).
+    // Результат и порядок те же, что у encrypt / decrypt для каждой записи по отдельности.
+    public static List<String> encryptAll(List<String> plaintexts, String key) {
+        BatchCipher batch = batch(EncryptionMode.textToBits(key));
+        byte[][] records = new byte[plaintexts.size()][];
+        for (int i = 0; i < records.length; i++) records[i] = textBytes(plaintexts.get(i));
+        byte[][] encrypted = batch.encrypt(records);
+        List<String> out = new ArrayList<>(encrypted.length);
+        for (byte[] c : encrypted) out.add(BitCodec.bytesToHex(c, 0, c.length, true));
+        return out;
+    }
+
+    public static List<String> decryptAll(List<String> cipherHexes, String key) {
+        BatchCipher batch = batch(EncryptionMode.textToBits(key));
+        byte[][] records = new byte[cipherHexes.size()][];
+        for (int i = 0; i < records.length; i++) {
+            // неполный последний блок decrypt дополняет нулевыми битами — то же, что нули в конце HEX
+            String hex = cipherHexes.get(i);
+            int blockHex = BLOCK_SIZE / 4;
+            int padded = (hex.length() + blockHex - 1) / blockHex * blockHex;
+            records[i] = BitCodec.hexToBytes(hex + "0".repeat(padded - hex.length()));
+        }
+        byte[][] decrypted = batch.decrypt(records);
+        List<String> out = new ArrayList<>(decrypted.length);
+        for (byte[] p : decrypted) out.add(new String(p, StandardCharsets.ISO_8859_1));
+        return out;
+    }
+
+    // пакет на byte[]: ECB по записи, нули до границы блока — как в encrypt
+    public static BatchCipher batch(String keyBits) {
+        return new BatchCipher(engine(keyBits), BatchCipher.Padding.ZERO);
+    }
+
+    // байты той же битовой строки, что даёт textToBits; символ выше 0xFF даёт больше 8 бит —
+    // тогда через строку бит, дополненную нулями до байта (шифр всё равно дополняет блок нулями)
+    private static byte[] textBytes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                String bits = EncryptionMode.textToBits(text);
+                return BitCodec.bitsToBytes(bits + "0".repeat((8 - bits.length() % 8) % 8));
             }
-            plainBits.append(decryptBlock(block, keyBits));
         }
-        return EncryptionMode.bitsToText(plainBits.toString());
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // --- ECB над битами: неполный последний блок дополняется нулями ---
+    public static String ecbEncryptBits(String bits, String keyBits) {
+        long t0 = OperationMetrics.start();
+        FeistelEngine engine = engine(keyBits);
+        String result = ParallelBlockEngine.ecb(bits, BLOCK_SIZE, range -> {
+            StringBuilder out = new StringBuilder();
+            for (String block : EncryptionMode.splitIntoBlocks(range, BLOCK_SIZE)) {
+                if (block.length() < BLOCK_SIZE) {
+                    while (block.length() < BLOCK_SIZE) block += "0";
+                }
+                out.append(engine.encryptBlock(block));
+            }
+            return out.toString();
+        });
+        OperationMetrics.record(ECB_ENCRYPT, t0, bits.length() / 8, result.length() / 8);
+        return result;
+    }
+
+    public static String ecbDecryptBits(String cipherBits, String keyBits) {
+        long t0 = OperationMetrics.start();
+        FeistelEngine engine = engine(keyBits);
+        String result = ParallelBlockEngine.ecb(cipherBits, BLOCK_SIZE, range -> {
+            StringBuilder out = new StringBuilder();
+            for (String block : EncryptionMode.splitIntoBlocks(range, BLOCK_SIZE)) {
+                if (block.length() < BLOCK_SIZE) {
+                    while (block.length() < BLOCK_SIZE) block += "0";
+                }
+                out.append(engine.decryptBlock(block));
+            }
+            return out.toString();
+        });
+        OperationMetrics.record(ECB_DECRYPT, t0, cipherBits.length() / 8, result.length() / 8);
+        return result;
+    }
+
+    // --- ECB на byte[]: len кратно 64 байтам; in и out могут совпадать (ModeEngine) ---
+    public static void ecbEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.ecbEncrypt(in, inOff, out, outOff, len, keys.feistel());
+        OperationMetrics.record(ECB_ENCRYPT_BYTES, t0, len, len);
+    }
+
+    public static void ecbDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.ecbDecrypt(in, inOff, out, outOff, len, keys.feistel());
+        OperationMetrics.record(ECB_DECRYPT_BYTES, t0, len, len);
+    }
+
+    // --- Режим CTR: ключ — текст, как в encrypt/decrypt; IV — биты; шифртекст той же длины, что и текст ---
+    public static String ctrEncrypt(String plaintext, String key, String ivBits) {
+        long t0 = OperationMetrics.start();
+        String cipherBits = ctr(key, ivBits).process(EncryptionMode.textToBits(plaintext));
+        OperationMetrics.record(CTR_ENCRYPT, t0, cipherBits.length() / 8, cipherBits.length() / 8);
+        return EncryptionMode.bitsToHex(cipherBits);
+    }
+
+    public static String ctrDecrypt(String cipherHex, String key, String ivBits) {
+        long t0 = OperationMetrics.start();
+        String plainBits = ctr(key, ivBits).process(EncryptionMode.hexToBits(cipherHex));
+        OperationMetrics.record(CTR_DECRYPT, t0, plainBits.length() / 8, plainBits.length() / 8);
+        return EncryptionMode.bitsToText(plainBits);
+    }
+
+    // объект CTR для частичного чтения: seek(смещение в битах) + process(фрагмент)
+    public static CtrMode ctr(String key, String ivBits) {
+        FeistelEngine engine = engine(EncryptionMode.textToBits(key));
+        return new CtrMode(engine::encryptBlock, BLOCK_SIZE, ivBits);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,241 @@
+package org.darksamus86.FileCipher;
+
+import org.darksamus86.FeistelCipher.FeistelCipher;
+import org.darksamus86.SPN.SPN;
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.EncryptionMode;
+import org.darksamus86.encryption_mode.ModeEngine;
+import org.darksamus86.encryption_mode.PackedBits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Шифрование файлов через FileChannel.map: вход и выход отображаются окнами по WINDOW_BYTES,
+ * окно режется на куски по CHUNK_BYTES, которые обрабатываются параллельно там, где режим это позволяет
+ * (ECB в обе стороны, расшифровка CBC); шифрование CBC идёт по кускам последовательно.
+ * Файл целиком в память не читается, куски шифруются byte[]-API без перевода в строки бит.
+ *
+ * Формат: все алгоритмы используют блок 512 бит и PKCS#7 (как pkcs7Pad(bytes, 512)),
+ * поэтому шифртекст SPN совпадает с SPN.ecbEncrypt / SPN.cbcEncrypt от pkcs7Pad всего файла,
+ * а расшифровка восстанавливает исходную длину файла точно.
+ */
+public class FileCipher {
+
+    public enum Algorithm { SPN_ECB, SPN_CBC, FEISTEL }
+
+    static final int BLOCK_BYTES = 64;
+    static final int CHUNK_BYTES = 64 * 1024;        // кусок одной задачи
+    static final long WINDOW_BYTES = 64L << 20;      // отображается за раз, кратно CHUNK_BYTES
+
+    // Преобразование куска на месте: buf[off, off + len); prev[prevOff..] — предыдущий блок шифртекста (или IV) для CBC
+    @FunctionalInterface
+    private interface BlockFunction {
+        void apply(byte[] buf, int off, int len, byte[] prev, int prevOff);
+    }
+
+    // --- Шифрование файла ---
+    // key: для SPN — 256-битный ключ в HEX, для Feistel — строка-ключ, как в FeistelCipher.encrypt
+    // ivHex: только для SPN_CBC
+    public static void encryptFile(Path input, Path output, Algorithm algorithm, String key, String ivHex) throws IOException {
+        BlockFunction fn = blockFunction(algorithm, key, true);
+        byte[] iv = iv(algorithm, ivHex);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            long size = in.size();
+            long body = size / BLOCK_BYTES * BLOCK_BYTES;
+            byte[] prev = processBody(in, out, body, fn, iv, algorithm == Algorithm.SPN_CBC);
+
+            byte[] tail = new byte[(int) (size - body)];
+            readFully(in, tail, body);
+            byte[] last = EncryptionMode.pkcs7Pad(tail, BLOCK_BYTES * 8);
+            fn.apply(last, 0, last.length, prev, 0);
+            writeFully(out, last, body);
+        }
+    }
+
+    // --- Расшифровка файла ---
+    public static void decryptFile(Path input, Path output, Algorithm algorithm, String key, String ivHex) throws IOException {
+        BlockFunction fn = blockFunction(algorithm, key, false);
+        byte[] iv = iv(algorithm, ivHex);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            long size = in.size();
+            if (size == 0 || size % BLOCK_BYTES != 0) {
+                throw new IOException("Длина шифртекста должна быть ненулевой и кратной " + BLOCK_BYTES + " байтам");
+            }
+            long body = size - BLOCK_BYTES;
+            processBody(in, out, body, fn, iv, false);
+
+            // последний блок вместе с предыдущим (или IV) для CBC
+            byte[] last = new byte[2 * BLOCK_BYTES];
+            if (body > 0) readFully(in, last, body - BLOCK_BYTES);
+            else {
+                System.arraycopy(iv, 0, last, 0, BLOCK_BYTES);
+                readFully(in, last, BLOCK_BYTES, body);
+            }
+            fn.apply(last, BLOCK_BYTES, BLOCK_BYTES, last, 0);
+            writeFully(out, EncryptionMode.pkcs7Unpad(Arrays.copyOfRange(last, BLOCK_BYTES, last.length)), body);
+        }
+    }
+
+    // --- Обработка полных блоков [0, len) окнами отображения ---
+    // Возвращает блок, предшествующий len: для CBC-шифрования — последний блок выхода.
+    private static byte[] processBody(FileChannel in, FileChannel out, long len, BlockFunction fn,
+                                      byte[] iv, boolean sequential) throws IOException {
+        byte[] prev = iv;
+        for (long pos = 0; pos < len; pos += WINDOW_BYTES) {
+            int n = (int) Math.min(WINDOW_BYTES, len - pos);
+            MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, pos, n);
+            MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, pos, n);
+            int nChunks = (n + CHUNK_BYTES - 1) / CHUNK_BYTES;
+
+            if (sequential) {
+                byte[] buf = new byte[BLOCK_BYTES + CHUNK_BYTES];
+                for (int i = 0; i < nChunks; i++) {
+                    System.arraycopy(prev, 0, buf, 0, BLOCK_BYTES);
+                    int chunkLen = transformChunk(src, dst, i, n, fn, buf, false);
+                    prev = Arrays.copyOfRange(buf, chunkLen, chunkLen + BLOCK_BYTES);
+                }
+            } else {
+                // предыдущий блок для куска берётся из входа (шифртекст CBC), так что куски независимы
+                byte[] windowPrev = prev;
+                IntStream.range(0, nChunks).parallel().forEach(i -> {
+                    byte[] buf = new byte[BLOCK_BYTES + CHUNK_BYTES];
+                    if (i == 0) System.arraycopy(windowPrev, 0, buf, 0, BLOCK_BYTES);
+                    transformChunk(src, dst, i, n, fn, buf, i > 0);
+                });
+                prev = new byte[BLOCK_BYTES];
+                src.get(n - BLOCK_BYTES, prev);
+            }
+        }
+        return prev;
+    }
+
+    // buf: первые BLOCK_BYTES — предыдущий блок (при withPrevInput читается из входа), дальше кусок
+    private static int transformChunk(ByteBuffer src, ByteBuffer dst, int chunk, int windowLen,
+                                      BlockFunction fn, byte[] buf, boolean withPrevInput) {
+        int off = chunk * CHUNK_BYTES;
+        int len = Math.min(CHUNK_BYTES, windowLen - off);
+        if (withPrevInput) src.get(off - BLOCK_BYTES, buf, 0, BLOCK_BYTES + len);
+        else src.get(off, buf, BLOCK_BYTES, len);
+        fn.apply(buf, BLOCK_BYTES, len, buf, 0);
+        dst.put(off, buf, BLOCK_BYTES, len);
+        return len;
+    }
+
+    // --- Выбор алгоритма: BlockCipher + общий ModeEngine, без промежуточных строк ---
+    private static BlockFunction blockFunction(Algorithm algorithm, String key, boolean encrypt) {
+        BlockCipher cipher = algorithm == Algorithm.FEISTEL
+                ? FeistelCipher.blockCipher(EncryptionMode.textToBits(key))
+                : SPN.blockCipher(SPN.roundKeys(EncryptionMode.hexToBits(key)));
+        if (algorithm == Algorithm.SPN_CBC) {
+            return encrypt ? (buf, off, len, prev, prevOff) -> ModeEngine.cbcEncrypt(buf, off, buf, off, len, cipher, prev, prevOff)
+                    : (buf, off, len, prev, prevOff) -> ModeEngine.cbcDecrypt(buf, off, buf, off, len, cipher, prev, prevOff);
+        }
+        return encrypt ? (buf, off, len, prev, prevOff) -> ModeEngine.ecbEncrypt(buf, off, buf, off, len, cipher)
+                : (buf, off, len, prev, prevOff) -> ModeEngine.ecbDecrypt(buf, off, buf, off, len, cipher);
+    }
+
+    // IV дополняется нулями слева до 512 бит, как в SPN.cbcEncrypt; для остальных режимов не используется
+    private static byte[] iv(Algorithm algorithm, String ivHex) {
+        if (algorithm != Algorithm.SPN_CBC) return new byte[BLOCK_BYTES];
+        if (ivHex == null || ivHex.isEmpty()) throw new IllegalArgumentException("Для CBC нужен IV");
+        String bits = EncryptionMode.leftPadTo(EncryptionMode.hexToBits(ivHex), BLOCK_BYTES * 8);
+        return PackedBits.toBytes(PackedBits.fromBits(bits), BLOCK_BYTES);
+    }
+
+    // --- Ввод-вывод ---
+    private static FileChannel openOutput(Path output) throws IOException {
+        return FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readFully(FileChannel ch, byte[] dst, long position) throws IOException {
+        readFully(ch, dst, 0, position);
+    }
+
+    private static void readFully(FileChannel ch, byte[] dst, int off, long position) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(dst, off, dst.length - off).slice();
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) throw new IOException("Неожиданный конец файла");
+        }
+    }
+
+    private static void writeFully(FileChannel ch, byte[] src, long position) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(src);
+        while (buf.hasRemaining()) {
+            ch.write(buf, position + buf.position());
+        }
+    }
+
+    // ---------- Main: CLI без интерактивного меню ----------
+    // FileCipher encrypt|decrypt spn-ecb|spn-cbc|feistel <вход> <выход> [-k ключ] [-iv IV(HEX)]
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            usage();
+            return;
+        }
+        boolean encrypt;
+        if (args[0].equals("encrypt")) encrypt = true;
+        else if (args[0].equals("decrypt")) encrypt = false;
+        else {
+            usage();
+            return;
+        }
+
+        Algorithm algorithm;
+        switch (args[1]) {
+            case "spn-ecb": algorithm = Algorithm.SPN_ECB; break;
+            case "spn-cbc": algorithm = Algorithm.SPN_CBC; break;
+            case "feistel": algorithm = Algorithm.FEISTEL; break;
+            default:
+                usage();
+                return;
+        }
+
+        String key = null;
+        String ivHex = null;
+        for (int i = 4; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-k")) key = args[i + 1];
+            else if (args[i].equals("-iv")) ivHex = args[i + 1];
+        }
+
+        if (key == null) {
+            if (!encrypt) {
+                System.out.println("Для расшифровки нужен ключ (-k).");
+                return;
+            }
+            // как в меню SPN/Feistel: генерируем 256-битный ключ и печатаем его в HEX
+            key = EncryptionMode.bitsToHex(EncryptionMode.generateKey(256));
+            System.out.println("Сгенерированный ключ (HEX): " + key);
+        }
+        if (algorithm == Algorithm.SPN_CBC && ivHex == null) {
+            if (!encrypt) {
+                System.out.println("Для расшифровки CBC нужен IV (-iv).");
+                return;
+            }
+            ivHex = EncryptionMode.bitsToHex(EncryptionMode.generateIV(128));
+            System.out.println("IV (HEX): " + ivHex);
+        }
+
+        try {
+            long start = System.nanoTime();
+            if (encrypt) encryptFile(Path.of(args[2]), Path.of(args[3]), algorithm, key, ivHex);
+            else decryptFile(Path.of(args[2]), Path.of(args[3]), algorithm, key, ivHex);
+            System.out.printf("Готово за %.1f мс%n", (System.nanoTime() - start) / 1e6);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Использование: FileCipher encrypt|decrypt spn-ecb|spn-cbc|feistel <вход> <выход> [-k ключ] [-iv IV(HEX)]");
+    }
+}
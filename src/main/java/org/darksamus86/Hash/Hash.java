@@ -1,8 +1,20 @@
 package org.darksamus86.Hash;
 
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
+
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public class Hash {
 
@@ -10,132 +22,142 @@ public class Hash {
     private static final Pattern HEX_PATTERN = Pattern.compile("^[0-9a-fA-F]+$");
     private static final Pattern DEC_PATTERN = Pattern.compile("^\\d+$");
 
+    // метрика hash (OperationMetrics; выключена по умолчанию): вход — байты сообщения, выход — 4 байта
+    private static final OperationStats HASH = OperationMetrics.operation("Hash", "hash");
+    private static final OperationStats HASH_FILE = OperationMetrics.operation("Hash", "hashFile");
+    private static final OperationStats HASH_ALL = OperationMetrics.operation("Hash", "hashAll");
+
+    // файл отображается в память окнами такого размера
+    static final long FILE_WINDOW_BYTES = 64L << 20;
+    // сообщений на задачу в hashAll: короткие ключи дешёвые, задача должна окупать планирование
+    static final int MESSAGES_PER_TASK = 4096;
+
     // ----------------------- Публичный метод -----------------------
     public static String hash(String ivInput, String plainInput) {
-        String ivBits = parseIvInput(ivInput);
+        long t0 = OperationMetrics.start();
+        int state = parseIv(ivInput);
         String bits = parsePlaintextToBits(plainInput);
 
         if (bits.isEmpty()) {
             throw new IllegalArgumentException("Пустой ввод — ничего хешировать.");
         }
 
-        java.util.List<String> blocks = new java.util.ArrayList<>();
-        int pos = 0;
-        while (pos < bits.length()) {
+        // блоки по 32 бита, последний неполный дополняется нулями справа
+        for (int pos = 0; pos < bits.length(); pos += 32) {
             int end = Math.min(pos + 32, bits.length());
-            blocks.add(bits.substring(pos, end));
-            pos = end;
-        }
-
-        if (blocks.isEmpty()) {
-            blocks.add("00000000000000000000000000000000");
-        }
-
-        String last = blocks.get(blocks.size() - 1);
-        if (last.length() < 32) {
-            last = String.format("%-32s", last).replace(' ', '0');
-            blocks.set(blocks.size() - 1, last);
+            int block = Integer.parseUnsignedInt(bits, pos, end, 2) << (32 - (end - pos));
+            state = compress32(state, block);
         }
 
-        String state = ivBits;
-        for (String blk : blocks) {
-            state = compress32(state, blk);
-        }
-
-        return state;
+        OperationMetrics.record(HASH, t0, (bits.length() + 7) / 8, 4);
+        return toBits32(state);
     }
 
-    // ----------------------- SPN Примитивы -----------------------
+    // ----------------------- Хеш файла -----------------------
+    // Тот же результат, что hash(iv, "0x" + HEX содержимого), но без строк: файл читается через
+    // FileChannel.map окнами по FILE_WINDOW_BYTES, compress32 получает слова прямо из отображения
+    public static String hashFile(Path file, String ivInput) throws IOException {
+        return toBits32(hashFile(file, parseIv(ivInput)));
+    }
 
-    private static String sboxLookup(String pair) {
-        return switch (pair) {
-            case "00" -> "10";
-            case "01" -> "00";
-            case "10" -> "11";
-            case "11" -> "01";
-            default -> throw new IllegalArgumentException("Bad sbox input: " + pair);
-        };
+    public static int hashFile(Path file, int iv) throws IOException {
+        return hashFile(file, iv, FILE_WINDOW_BYTES);
     }
 
-    private static String sboxSubstitution(String bits4) {
-        String a = bits4.substring(0, 2);
-        String b = bits4.substring(2, 4);
-        return sboxLookup(a) + sboxLookup(b);
+    static int hashFile(Path file, int iv, long windowBytes) throws IOException {
+        long t0 = OperationMetrics.start();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) throw new IllegalArgumentException("Пустой файл — ничего хешировать: " + file);
+            Hasher hasher = new Hasher(iv);
+            for (long pos = 0; pos < size; pos += windowBytes) {
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(windowBytes, size - pos));
+                hasher.update(window);
+            }
+            int digest = hasher.digest();
+            OperationMetrics.record(HASH_FILE, t0, size, 4);
+            return digest;
+        }
     }
 
-    private static String permutation(String bits4) {
-        if (bits4.length() != 4) throw new IllegalArgumentException("perm expects 4 bits");
-        return "" + bits4.charAt(1) + bits4.charAt(0) + bits4.charAt(3) + bits4.charAt(2);
+    // ----------------------- Пакет сообщений -----------------------
+    // Хеши многих независимых сообщений (например, коротких ключей) одним вызовом: результат i —
+    // то же, что new Hasher(iv).update(messages[i]).digest(). Сообщения идут группами по HashLanes.LANES
+    // с чередованием шагов; пакет от порога ParallelBlockEngine делится на задачи по MESSAGES_PER_TASK.
+    public static int[] hashAll(int iv, byte[][] messages) {
+        long t0 = OperationMetrics.start();
+        long totalBytes = 0;
+        for (int i = 0; i < messages.length; i++) {
+            if (messages[i].length == 0) throw new IllegalArgumentException("Пустое сообщение " + i + " — ничего хешировать.");
+            totalBytes += messages[i].length;
+        }
+        int[] out = new int[messages.length];
+        int nTasks = (messages.length + MESSAGES_PER_TASK - 1) / MESSAGES_PER_TASK;
+        if (nTasks <= 1 || totalBytes * 8 < ParallelBlockEngine.getThresholdBits()) {
+            HashLanes.hash(iv, messages, 0, messages.length, out);
+        } else {
+            IntStream.range(0, nTasks).parallel().forEach(t -> HashLanes.hash(iv, messages,
+                    t * MESSAGES_PER_TASK, Math.min(messages.length, (t + 1) * MESSAGES_PER_TASK), out));
+        }
+        OperationMetrics.record(HASH_ALL, t0, totalBytes, 4L * out.length);
+        return out;
     }
 
-    private static String roundEncrypt(String bits4, String key4, boolean lastRound) {
-        int bv = Integer.parseInt(bits4, 2);
-        int kv = Integer.parseInt(key4, 2);
-        int xr = bv ^ kv;
-        String xorRes = String.format("%4s", Integer.toBinaryString(xr & 0xF)).replace(' ', '0');
-        String sOut = sboxSubstitution(xorRes);
-        return lastRound ? sOut : permutation(sOut);
+    public static int[] hashAll(int iv, List<byte[]> messages) {
+        return hashAll(iv, messages.toArray(new byte[0][]));
     }
 
-    private static int spnEncrypt8bit(int P, int K) {
-        String pBits = String.format("%8s", Integer.toBinaryString(P & 0xFF)).replace(' ', '0');
-        String kBits = String.format("%8s", Integer.toBinaryString(K & 0xFF)).replace(' ', '0');
+    // ----------------------- SPN Примитивы -----------------------
+    // 8-битный SPN: полубайты P шифруются двумя раундами на полубайтах ключа K1, K2.
+    // Раунд: XOR с ключом, S-блок на парах бит (00->10, 01->00, 10->11, 11->01),
+    // затем (кроме последнего) перестановка соседних бит внутри пар.
 
-        String P1 = pBits.substring(0, 4);
-        String P2 = pBits.substring(4);
-        String K1 = kBits.substring(0, 4);
-        String K2 = kBits.substring(4);
+    private static final int[] SBOX2 = {0b10, 0b00, 0b11, 0b01};
 
-        String C1 = roundEncrypt(P1, K1, false);
-        String C2 = roundEncrypt(C1, K2, true);
-        String C3 = roundEncrypt(P2, K1, false);
-        String C4 = roundEncrypt(C3, K2, true);
+    // spnEncrypt8bit(P, K) для всех пар байт, считается один раз при загрузке класса: индекс (P << 8) | K, 64 КБ
+    private static final byte[] SPN8_TABLE = buildSpnTable();
 
-        String ciphertextBits = C2 + C4;
-        return Integer.parseInt(ciphertextBits, 2) & 0xFF;
+    private static int roundEncrypt(int x4, int k4, boolean lastRound) {
+        int x = (x4 ^ k4) & 0xF;
+        int s = (SBOX2[x >>> 2] << 2) | SBOX2[x & 3];
+        return lastRound ? s : ((s & 0b1010) >>> 1) | ((s & 0b0101) << 1);
     }
 
-    // ----------------------- Компрессия -----------------------
-
-    private static String compress32(String state32, String block32) {
-        if (state32.length() != 32 || block32.length() != 32) {
-            throw new IllegalArgumentException("state32 and block32 must be 32 bits");
-        }
+    private static int spnEncrypt8bit(int p, int k) {
+        int k1 = (k >>> 4) & 0xF, k2 = k & 0xF;
+        int c2 = roundEncrypt(roundEncrypt((p >>> 4) & 0xF, k1, false), k2, true);
+        int c4 = roundEncrypt(roundEncrypt(p & 0xF, k1, false), k2, true);
+        return (c2 << 4) | c4;
+    }
 
-        StringBuilder outBytes = new StringBuilder();
-        java.util.Iterator<String> itState = chunkBits(state32, 8).iterator();
-        java.util.Iterator<String> itBlock = chunkBits(block32, 8).iterator();
-
-        while (itState.hasNext() && itBlock.hasNext()) {
-            String sChunk = itState.next();
-            String bChunk = itBlock.next();
-            int sInt = Integer.parseInt(sChunk, 2);
-            int bInt = Integer.parseInt(bChunk, 2);
-            int outInt = spnEncrypt8bit(sInt, bInt);
-            outBytes.append(String.format("%8s", Integer.toBinaryString(outInt & 0xFF)).replace(' ', '0'));
+    private static byte[] buildSpnTable() {
+        byte[] t = new byte[256 * 256];
+        for (int p = 0; p < 256; p++) {
+            for (int k = 0; k < 256; k++) t[(p << 8) | k] = (byte) spnEncrypt8bit(p, k);
         }
+        return t;
+    }
 
-        String tmp = outBytes.toString();
-        int tmpInt = (int) (Long.parseLong(tmp, 2) & 0xffffffffL);
-        int stateInt = (int) (Long.parseLong(state32, 2) & 0xffffffffL);
-        int blockInt = (int) (Long.parseLong(block32, 2) & 0xffffffffL);
-
-        int newStateInt = tmpInt ^ stateInt ^ blockInt;
-        return String.format("%32s", Integer.toBinaryString(newStateInt & 0xffffffff)).replace(' ', '0');
+    // ----------------------- Компрессия -----------------------
+    // Байты состояния (старший первым) шифруются байтами блока, результат XOR состояние XOR блок
+
+    static int compress32(int state, int block) {
+        int tmp = (SPN8_TABLE[((state >>> 16) & 0xFF00) | (block >>> 24)] & 0xFF) << 24
+                | (SPN8_TABLE[((state >>> 8) & 0xFF00) | ((block >>> 16) & 0xFF)] & 0xFF) << 16
+                | (SPN8_TABLE[(state & 0xFF00) | ((block >>> 8) & 0xFF)] & 0xFF) << 8
+                | (SPN8_TABLE[((state << 8) & 0xFF00) | (block & 0xFF)] & 0xFF);
+        return tmp ^ state ^ block;
     }
 
     // ----------------------- Вспомогательные -----------------------
 
-    private static Iterable<String> chunkBits(String bitstr, final int n) {
-        return () -> new java.util.Iterator<>() {
-            int i = 0;
-            public boolean hasNext() { return i < bitstr.length(); }
-            public String next() {
-                int start = i;
-                i = Math.min(i + n, bitstr.length());
-                return bitstr.substring(start, i);
-            }
-        };
+    // IV в любом формате hash (bin / hex / 0xHH / dec) как 32-битное слово
+    public static int parseIv(String ivInput) {
+        return Integer.parseUnsignedInt(parseIvInput(ivInput), 2);
+    }
+
+    static String toBits32(int v) {
+        return String.format("%32s", Integer.toBinaryString(v)).replace(' ', '0');
     }
 
     private static String parseIvInput(String s) {
@@ -206,11 +228,7 @@ public class Hash {
     }
 
     private static String bytesToBits(byte[] b) {
-        StringBuilder sb = new StringBuilder();
-        for (byte by : b) {
-            sb.append(String.format("%8s", Integer.toBinaryString(by & 0xFF)).replace(' ', '0'));
-        }
-        return sb.toString();
+        return BitCodec.bytesToBits(b, 0, b.length);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,96 @@
+package org.darksamus86.Hash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Хеширование многих независимых сообщений по LANES за раз. Цепочка compress32 одного сообщения
+ * строго последовательна: каждый шаг ждёт загрузок из таблицы предыдущего. Восемь цепочек в
+ * отдельных локальных переменных независимы, и процессор выполняет их загрузки и XOR вперемешку.
+ * Сообщения группируются по длине; общая часть группы (по самому короткому) идёт по всем дорожкам
+ * сразу, хвосты — по одной.
+ *
+ * Векторизации нет: шаг compress32 — четыре выборки из 64 КБ таблицы, и gather по ней на доступных
+ * векторных расширениях не быстрее скалярных загрузок.
+ */
+final class HashLanes {
+
+    static final int LANES = 8;
+    // длины сортируются точно до этого числа слов; более длинные сообщения идут одной корзиной
+    static final int MAX_SORTED_WORDS = 256;
+    // сортируются окна по столько сообщений: перестановка не уходит далеко и не выбивает кэш
+    static final int WINDOW = 512;
+
+    private static final VarHandle BIG_ENDIAN_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private HashLanes() {
+    }
+
+    // out[i] = хеш messages[i] для i из [from, to)
+    static void hash(int iv, byte[][] messages, int from, int to, int[] out) {
+        for (int w = from; w < to; w += WINDOW) {
+            int[] order = byLength(messages, w, Math.min(to, w + WINDOW));
+            int g = 0;
+            for (; g + LANES <= order.length; g += LANES) hashGroup(iv, messages, order, g, out);
+            for (; g < order.length; g++) out[order[g]] = chain(iv, messages[order[g]], 0);
+        }
+    }
+
+    // индексы [from, to) по возрастанию числа слов (сортировка подсчётом, длиннее MAX_SORTED_WORDS — в конце):
+    // в группе оказываются сообщения почти одной длины, и общая часть покрывает почти всё
+    private static int[] byLength(byte[][] messages, int from, int to) {
+        int[] start = new int[MAX_SORTED_WORDS + 2];
+        for (int i = from; i < to; i++) start[words(messages[i]) + 1]++;
+        for (int k = 1; k < start.length; k++) start[k] += start[k - 1];
+        int[] order = new int[to - from];
+        for (int i = from; i < to; i++) order[start[words(messages[i])]++] = i;
+        return order;
+    }
+
+    private static int words(byte[] m) {
+        return Math.min(m.length >>> 2, MAX_SORTED_WORDS);
+    }
+
+    private static void hashGroup(int iv, byte[][] messages, int[] order, int g, int[] out) {
+        byte[] m0 = messages[order[g]], m1 = messages[order[g + 1]], m2 = messages[order[g + 2]], m3 = messages[order[g + 3]];
+        byte[] m4 = messages[order[g + 4]], m5 = messages[order[g + 5]], m6 = messages[order[g + 6]], m7 = messages[order[g + 7]];
+        int common = Math.min(Math.min(Math.min(m0.length, m1.length), Math.min(m2.length, m3.length)),
+                Math.min(Math.min(m4.length, m5.length), Math.min(m6.length, m7.length))) & ~3;
+        int s0 = iv, s1 = iv, s2 = iv, s3 = iv, s4 = iv, s5 = iv, s6 = iv, s7 = iv;
+        for (int off = 0; off < common; off += 4) {
+            s0 = Hash.compress32(s0, word(m0, off));
+            s1 = Hash.compress32(s1, word(m1, off));
+            s2 = Hash.compress32(s2, word(m2, off));
+            s3 = Hash.compress32(s3, word(m3, off));
+            s4 = Hash.compress32(s4, word(m4, off));
+            s5 = Hash.compress32(s5, word(m5, off));
+            s6 = Hash.compress32(s6, word(m6, off));
+            s7 = Hash.compress32(s7, word(m7, off));
+        }
+        out[order[g]] = chain(s0, m0, common);
+        out[order[g + 1]] = chain(s1, m1, common);
+        out[order[g + 2]] = chain(s2, m2, common);
+        out[order[g + 3]] = chain(s3, m3, common);
+        out[order[g + 4]] = chain(s4, m4, common);
+        out[order[g + 5]] = chain(s5, m5, common);
+        out[order[g + 6]] = chain(s6, m6, common);
+        out[order[g + 7]] = chain(s7, m7, common);
+    }
+
+    // продолжает цепочку с байта off: целые слова, затем неполное, дополненное нулями справа
+    private static int chain(int state, byte[] m, int off) {
+        int s = state;
+        for (; off + 4 <= m.length; off += 4) s = Hash.compress32(s, word(m, off));
+        if (off < m.length) {
+            int last = 0;
+            for (int k = 0; off + k < m.length; k++) last |= (m[off + k] & 0xFF) << (24 - 8 * k);
+            s = Hash.compress32(s, last);
+        }
+        return s;
+    }
+
+    private static int word(byte[] m, int off) {
+        return (int) BIG_ENDIAN_INT.get(m, off);
+    }
+}
@@ -0,0 +1,119 @@
+package org.darksamus86.Hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Потоковый хеш Hash.hash над байтами: состояние — одно 32-битное слово, буфер — не больше трёх байт
+ * неполного блока, поэтому поток любой длины хешируется без загрузки в память.
+ *
+ * Результат digest() совпадает с Hash.hash(iv, "0x" + HEX этих байт): блоки — 4 байта (старший
+ * первым), последний неполный дополняется нулями справа. digest() возвращает объект в начальное
+ * состояние с тем же IV. Объект не потокобезопасен.
+ */
+public final class Hasher {
+
+    private static final VarHandle BIG_ENDIAN_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private final int iv;
+    private int state;
+    private int partial;      // байты неполного блока, прижатые к старшим разрядам
+    private int partialBytes;
+    private long length;
+
+    public Hasher(int iv) {
+        this.iv = iv;
+        this.state = iv;
+    }
+
+    // IV в любом формате Hash.hash: bin / hex / 0xHH / dec
+    public static Hasher of(String ivInput) {
+        return new Hasher(Hash.parseIv(ivInput));
+    }
+
+    // --- Данные ---
+    public Hasher update(byte b) {
+        partial |= (b & 0xFF) << (24 - 8 * partialBytes);
+        if (++partialBytes == 4) flushPartial();
+        length++;
+        return this;
+    }
+
+    public Hasher update(byte[] data) {
+        return update(data, 0, data.length);
+    }
+
+    public Hasher update(byte[] data, int off, int len) {
+        Objects.checkFromIndexSize(off, len, data.length);
+        int end = off + len;
+        while (partialBytes != 0 && off < end) update(data[off++]);
+        int s = state;
+        int words = (end - off) / 4;
+        for (int i = 0; i < words; i++, off += 4) s = Hash.compress32(s, (int) BIG_ENDIAN_INT.get(data, off));
+        length += 4L * words;
+        state = s;
+        while (off < end) update(data[off++]);
+        return this;
+    }
+
+    // читает buf от position до limit; порядок байт буфера не важен
+    public Hasher update(ByteBuffer buf) {
+        while (partialBytes != 0 && buf.hasRemaining()) update(buf.get());
+        boolean swap = buf.order() != ByteOrder.BIG_ENDIAN;
+        int s = state;
+        int words = buf.remaining() / 4;
+        for (int i = 0; i < words; i++) {
+            int w = buf.getInt();
+            s = Hash.compress32(s, swap ? Integer.reverseBytes(w) : w);
+        }
+        length += 4L * words;
+        state = s;
+        while (buf.hasRemaining()) update(buf.get());
+        return this;
+    }
+
+    // читает поток до конца; поток не закрывается
+    public Hasher update(InputStream in) throws IOException {
+        byte[] buf = new byte[STREAM_BUFFER_BYTES];
+        int n;
+        while ((n = in.read(buf)) > 0) update(buf, 0, n);
+        return this;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    // --- Результат ---
+    public int digest() {
+        if (length == 0) throw new IllegalStateException("Пустой ввод — ничего хешировать.");
+        if (partialBytes != 0) flushPartial();
+        int result = state;
+        reset();
+        return result;
+    }
+
+    // тот же вид, что у Hash.hash: 32 символа '0'/'1'
+    public String digestBits() {
+        return Hash.toBits32(digest());
+    }
+
+    public void reset() {
+        state = iv;
+        partial = 0;
+        partialBytes = 0;
+        length = 0;
+    }
+
+    private void flushPartial() {
+        state = Hash.compress32(state, partial);
+        partial = 0;
+        partialBytes = 0;
+    }
+}
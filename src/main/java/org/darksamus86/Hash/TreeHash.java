@@ -0,0 +1,257 @@
+package org.darksamus86.Hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Древовидный (Merkle) хеш на compress32: данные режутся на листья по leafBytes байт, листья хешируются
+ * параллельно в ForkJoinPool, затем каждые fanOut соседних узлов сворачиваются в узел уровнем выше,
+ * пока не останется один. Цепочка Hash.hash последовательна, а здесь независимы все листья уровня.
+ *
+ *   лист  = цепочка compress32 от IV по словам [LEAF, байты листа...] (как Hasher)
+ *   узел  = цепочка по [NODE, дети...]
+ *   корень = цепочка по [ROOT, длина (старшие 32 бита), длина (младшие), верхний узел]
+ *
+ * Метки разделяют листья и узлы, длина входит в корень (последний лист дополняется нулями).
+ * Верхний узел идёт в корень последним блоком, а последний лист — последним ребёнком на каждом уровне.
+ * Корень зависит только от данных, IV, leafBytes и fanOut — не от числа потоков.
+ * Tree хранит все уровни: после изменения одного листа updateLeaf пересчитывает только путь до корня
+ * (Tree не потокобезопасен; сам TreeHash неизменяем).
+ */
+public final class TreeHash {
+
+    public static final int DEFAULT_LEAF_BYTES = 64 * 1024;
+    public static final int DEFAULT_FAN_OUT = 2;
+
+    static final int LEAF = 0;
+    static final int NODE = 1;
+    static final int ROOT = 2;
+
+    // файл отображается окнами не больше этого размера (целое число листьев)
+    static final long MAP_WINDOW_BYTES = 1L << 30;
+    // минимум работы на одну задачу ForkJoin
+    private static final int TASK_BYTES = 64 * 1024;
+    private static final int TASK_NODES = 4096;
+
+    private final int iv;
+    private final int leafBytes;
+    private final int fanOut;
+    private final ForkJoinPool pool;
+
+    public TreeHash(int iv) {
+        this(iv, DEFAULT_LEAF_BYTES, DEFAULT_FAN_OUT, ForkJoinPool.commonPool());
+    }
+
+    // leafBytes — кратно 4, fanOut — от 2
+    public TreeHash(int iv, int leafBytes, int fanOut, ForkJoinPool pool) {
+        if (leafBytes <= 0 || leafBytes % 4 != 0 || leafBytes > MAP_WINDOW_BYTES) {
+            throw new IllegalArgumentException("Размер листа должен быть положительным и кратным 4: " + leafBytes);
+        }
+        if (fanOut < 2) throw new IllegalArgumentException("Ветвление должно быть не меньше 2: " + fanOut);
+        this.iv = iv;
+        this.leafBytes = leafBytes;
+        this.fanOut = fanOut;
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public int leafBytes() {
+        return leafBytes;
+    }
+
+    public int fanOut() {
+        return fanOut;
+    }
+
+    // --- Хеш целиком ---
+    public int hash(byte[] data) {
+        return tree(data).root();
+    }
+
+    public int hash(Path file) throws IOException {
+        return tree(file).root();
+    }
+
+    // --- Дерево со всеми уровнями ---
+    public Tree tree(byte[] data) {
+        return tree(ByteBuffer.wrap(data));
+    }
+
+    // читает data от position до limit, позиция буфера не меняется
+    public Tree tree(ByteBuffer data) {
+        ByteBuffer src = data.slice();
+        int[] leaves = new int[leafCount(src.remaining())];
+        hashLeaves(src, leaves, 0);
+        return build(leaves, src.remaining());
+    }
+
+    public Tree tree(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int[] leaves = new int[leafCount(size)];
+            long window = MAP_WINDOW_BYTES / leafBytes * leafBytes;
+            for (long pos = 0; pos < size; pos += window) {
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(window, size - pos));
+                hashLeaves(map, leaves, (int) (pos / leafBytes));
+            }
+            if (size == 0) leaves[0] = leaf(ByteBuffer.allocate(0));
+            return build(leaves, size);
+        }
+    }
+
+    // --- Листья ---
+    private int leafCount(long length) {
+        long n = Math.max(1, (length + leafBytes - 1) / leafBytes);
+        if (n > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Слишком много листьев: " + n);
+        return (int) n;
+    }
+
+    private void hashLeaves(ByteBuffer src, int[] leaves, int firstLeaf) {
+        int len = src.remaining();
+        int n = Math.max(1, (len + leafBytes - 1) / leafBytes);
+        run(n, Math.max(1, TASK_BYTES / leafBytes), i -> {
+            int off = i * leafBytes;
+            leaves[firstLeaf + i] = leaf(src.slice(off, Math.min(leafBytes, len - off)));
+        });
+    }
+
+    private int leaf(ByteBuffer bytes) {
+        int start = Hash.compress32(iv, LEAF);
+        return bytes.hasRemaining() ? new Hasher(start).update(bytes).digest() : start;
+    }
+
+    // --- Узлы ---
+    private Tree build(int[] leaves, long length) {
+        int depth = 1;
+        for (long n = leaves.length; n > 1; n = (n + fanOut - 1) / fanOut) depth++;
+        int[][] levels = new int[depth][];
+        levels[0] = leaves;
+        for (int d = 1; d < depth; d++) {
+            int[] below = levels[d - 1];
+            int[] level = new int[(below.length + fanOut - 1) / fanOut];
+            run(level.length, Math.max(1, TASK_NODES / fanOut), i -> level[i] = node(below, i));
+            levels[d] = level;
+        }
+        return new Tree(this, levels, length);
+    }
+
+    private int node(int[] below, int index) {
+        int s = Hash.compress32(iv, NODE);
+        int end = Math.min(below.length, (index + 1) * fanOut);
+        for (int c = index * fanOut; c < end; c++) s = Hash.compress32(s, below[c]);
+        return s;
+    }
+
+    private int root(int top, long length) {
+        int s = Hash.compress32(iv, ROOT);
+        s = Hash.compress32(s, (int) (length >>> 32));
+        s = Hash.compress32(s, (int) length);
+        return Hash.compress32(s, top);
+    }
+
+    // --- Дерево ---
+    public static final class Tree {
+        private final TreeHash config;
+        private final int[][] levels; // levels[0] — листья, последний уровень — один узел
+        private final long length;
+        private int root;
+
+        private Tree(TreeHash config, int[][] levels, long length) {
+            this.config = config;
+            this.levels = levels;
+            this.length = length;
+            this.root = config.root(levels[levels.length - 1][0], length);
+        }
+
+        public int root() {
+            return root;
+        }
+
+        // тот же вид, что у Hash.hash: 32 символа '0'/'1'
+        public String rootBits() {
+            return Hash.toBits32(root);
+        }
+
+        public long length() {
+            return length;
+        }
+
+        public int leafCount() {
+            return levels[0].length;
+        }
+
+        // число уровней вместе с листьями
+        public int depth() {
+            return levels.length;
+        }
+
+        public int levelSize(int level) {
+            return levels[level].length;
+        }
+
+        public int node(int level, int index) {
+            return levels[level][index];
+        }
+
+        // --- Изменение одного листа: новые байты той же длины, пересчёт пути до корня ---
+        public void updateLeaf(int index, byte[] leaf) {
+            updateLeaf(index, ByteBuffer.wrap(leaf));
+        }
+
+        public void updateLeaf(int index, ByteBuffer leaf) {
+            Objects.checkIndex(index, leafCount());
+            long expected = Math.min(config.leafBytes, length - (long) index * config.leafBytes);
+            if (leaf.remaining() != expected) {
+                throw new IllegalArgumentException("Лист " + index + " должен быть " + expected + " байт, получено " + leaf.remaining());
+            }
+            levels[0][index] = config.leaf(leaf.slice());
+            for (int d = 1; d < levels.length; d++) {
+                index /= config.fanOut;
+                levels[d][index] = config.node(levels[d - 1], index);
+            }
+            root = config.root(levels[levels.length - 1][0], length);
+        }
+    }
+
+    // --- Планирование: fn(i) для i из [0, n), задачи по grain индексов ---
+    private void run(int n, int grain, IntConsumer fn) {
+        if (n <= grain) {
+            for (int i = 0; i < n; i++) fn.accept(i);
+            return;
+        }
+        pool.invoke(new RangeTask(0, n, grain, fn));
+    }
+
+    // задачи живут внутри одного invoke() и не сериализуются
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer fn;
+
+        RangeTask(int from, int to, int grain, IntConsumer fn) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.fn = fn;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, grain, fn), new RangeTask(mid, to, grain, fn));
+                return;
+            }
+            for (int i = from; i < to; i++) fn.accept(i);
+        }
+    }
+}
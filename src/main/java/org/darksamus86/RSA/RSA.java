@@ -1,9 +1,16 @@
 package org.darksamus86.RSA;
 
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+
 import java.util.Random;
 
 public class RSA {
 
+    // метрики encrypt/decrypt (OperationMetrics; выключены по умолчанию): байты — символы текста и байты шифртекста
+    private static final OperationStats ENCRYPT = OperationMetrics.operation("RSA", "encrypt");
+    private static final OperationStats DECRYPT = OperationMetrics.operation("RSA", "decrypt");
+
     private static int gcd(int a, int b) {
         while (b != 0) {
             int temp = a % b;
@@ -85,21 +92,25 @@ public class RSA {
     }
 
     public static String encrypt(String message, long e, long n) {
+        long t0 = OperationMetrics.start();
         StringBuilder cipherHex = new StringBuilder();
         for (char ch : message.toCharArray()) {
             long cipherNum = modPow(ch, e, n);
             cipherHex.append(String.format("%08x", cipherNum));
         }
+        OperationMetrics.record(ENCRYPT, t0, message.length(), cipherHex.length() / 2);
         return cipherHex.toString();
     }
 
     public static String decrypt(String cipherHex, long d, long n) {
+        long t0 = OperationMetrics.start();
         StringBuilder decrypted = new StringBuilder();
         for (int i = 0; i < cipherHex.length(); i += 8) {
             long num = Long.parseLong(cipherHex.substring(i, i + 8), 16);
             char ch = (char) modPow(num, d, n);
             decrypted.append(ch);
         }
+        OperationMetrics.record(DECRYPT, t0, cipherHex.length() / 2, decrypted.length());
         return decrypted.toString();
     }
 
@@ -0,0 +1,142 @@
+package org.darksamus86.SPN;
+
+import org.darksamus86.encryption_mode.BitPermutation;
+
+import java.util.List;
+
+/**
+ * Битслайсинговая реализация SPN.encryptBlock / SPN.decryptBlock: 64 независимых 512-битных блока за проход.
+ * Блоки транспонируются в 512 «срезов» (long, бит j среза p — бит p блока j),
+ * XOR с ключом — инверсия срезов, 4-битный S-box — булева схема (ANF SBOX_HEX / INV_SBOX_HEX),
+ * P-box — переименование срезов. Результат побитно совпадает со скалярным путём.
+ *
+ * Применима, когда все четыре раундовых ключа ровно по 128 бит (как у SPN.roundKeys).
+ */
+final class BitslicedSPN {
+
+    static final int LANES = 64;
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / 64;
+    private static final int SUB_BLOCK_BITS = 128;
+
+    private final long[] keyMask = new long[BLOCK_BITS]; // 0 или -1 для каждого бита блока
+    private final int[] forwardSrc;                      // перестановка всего блока (dest -> src), null если тождественная
+    private final int[] inverseSrc;
+
+    BitslicedSPN(List<String> roundKeys) {
+        if (!supports(roundKeys)) throw new IllegalArgumentException("Нужны четыре раундовых ключа по 128 бит");
+        for (int i = 0; i < 4; i++) {
+            String rk = roundKeys.get(i);
+            for (int j = 0; j < SUB_BLOCK_BITS; j++) {
+                keyMask[i * SUB_BLOCK_BITS + j] = rk.charAt(j) == '1' ? -1L : 0L;
+            }
+        }
+        BitPermutation pbox = BitPermutation.standard(SUB_BLOCK_BITS);
+        forwardSrc = pbox.isIdentity(false) ? null : blockPermutation(pbox.sourceIndices(false));
+        inverseSrc = pbox.isIdentity(true) ? null : blockPermutation(pbox.sourceIndices(true));
+    }
+
+    static boolean supports(List<String> roundKeys) {
+        if (roundKeys.size() < 4) return false;
+        for (int i = 0; i < 4; i++) {
+            if (roundKeys.get(i).length() != SUB_BLOCK_BITS) return false;
+        }
+        return true;
+    }
+
+    // --- Шифрование / расшифровка nBlocks блоков по 8 слов (in и out могут совпадать) ---
+    void encrypt(long[] in, long[] out, int nBlocks) {
+        long[] s = new long[BLOCK_BITS];
+        long[] tmp = forwardSrc == null ? null : new long[BLOCK_BITS];
+        for (int first = 0; first < nBlocks; first += LANES) {
+            int n = Math.min(LANES, nBlocks - first);
+            load(in, first, n, s);
+            for (int p = 0; p < BLOCK_BITS; p++) s[p] ^= keyMask[p];
+            for (int p = 0; p < BLOCK_BITS; p += 4) sbox(s, p);
+            if (forwardSrc != null) s = permute(s, tmp, forwardSrc);
+            store(s, out, first, n);
+        }
+    }
+
+    void decrypt(long[] in, long[] out, int nBlocks) {
+        long[] s = new long[BLOCK_BITS];
+        long[] tmp = inverseSrc == null ? null : new long[BLOCK_BITS];
+        for (int first = 0; first < nBlocks; first += LANES) {
+            int n = Math.min(LANES, nBlocks - first);
+            load(in, first, n, s);
+            if (inverseSrc != null) s = permute(s, tmp, inverseSrc);
+            for (int p = 0; p < BLOCK_BITS; p += 4) inverseSbox(s, p);
+            for (int p = 0; p < BLOCK_BITS; p++) s[p] ^= keyMask[p];
+            store(s, out, first, n);
+        }
+    }
+
+    // --- S-box как булева схема; a — старший бит полубайта, d — младший ---
+    static void sbox(long[] s, int p) {
+        long a = s[p], b = s[p + 1], c = s[p + 2], d = s[p + 3];
+        long cd = c & d, bc = b & c, bcd = bc & d, ad = a & d;
+        s[p] = ~(d ^ c ^ cd ^ b ^ bc ^ bcd ^ a ^ ad);
+        s[p + 1] = c ^ cd ^ bcd ^ ad ^ (ad & b);
+        s[p + 2] = d ^ c ^ bc ^ a ^ (a & b);
+        s[p + 3] = d ^ c ^ b ^ bc ^ bcd ^ ad ^ (ad & c) ^ (a & bc);
+    }
+
+    static void inverseSbox(long[] s, int p) {
+        long a = s[p], b = s[p + 1], c = s[p + 2], d = s[p + 3];
+        long cd = c & d, bc = b & c, bcd = bc & d, ad = a & d, ac = a & c, acd = ac & d, abc = a & bc;
+        s[p] = c ^ cd ^ b ^ (b & d) ^ bc ^ bcd ^ ad ^ ac ^ acd ^ abc;
+        s[p + 1] = d ^ cd ^ ac ^ (a & b) ^ abc;
+        s[p + 2] = ~(d ^ c ^ cd ^ b ^ a ^ ad ^ ac ^ acd);
+        s[p + 3] = ~(d ^ c ^ bc ^ a ^ ad ^ abc);
+    }
+
+    // --- P-box: срезы просто меняются местами ---
+    private static long[] permute(long[] s, long[] tmp, int[] srcOf) {
+        for (int d = 0; d < BLOCK_BITS; d++) tmp[d] = srcOf[d] >= 0 ? s[srcOf[d]] : 0L;
+        System.arraycopy(tmp, 0, s, 0, BLOCK_BITS);
+        return s;
+    }
+
+    private static int[] blockPermutation(int[] chunkSrc) {
+        int[] srcOf = new int[BLOCK_BITS];
+        for (int base = 0; base < BLOCK_BITS; base += SUB_BLOCK_BITS) {
+            for (int d = 0; d < SUB_BLOCK_BITS; d++) {
+                srcOf[base + d] = chunkSrc[d] < 0 ? -1 : base + chunkSrc[d];
+            }
+        }
+        return srcOf;
+    }
+
+    // --- Переход блоки <-> срезы: 8 транспонирований 64x64 ---
+    private static void load(long[] in, int first, int n, long[] s) {
+        for (int w = 0; w < BLOCK_WORDS; w++) {
+            int base = w * 64;
+            for (int j = 0; j < LANES; j++) {
+                s[base + j] = j < n ? in[(first + j) * BLOCK_WORDS + w] : 0L;
+            }
+            transpose64(s, base);
+        }
+    }
+
+    private static void store(long[] s, long[] out, int first, int n) {
+        for (int w = 0; w < BLOCK_WORDS; w++) {
+            int base = w * 64;
+            transpose64(s, base);
+            for (int j = 0; j < n; j++) {
+                out[(first + j) * BLOCK_WORDS + w] = s[base + j];
+            }
+        }
+    }
+
+    // транспонирование битовой матрицы 64x64 на месте (строка — long, столбец 0 — старший бит)
+    static void transpose64(long[] a, int off) {
+        long m = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, m ^= m << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long t = (a[off + k] ^ (a[off + (k | j)] >>> j)) & m;
+                a[off + k] ^= t;
+                a[off + (k | j)] ^= t << j;
+            }
+        }
+    }
+}
@@ -2,49 +2,194 @@ package org.darksamus86.SPN;
 
 import static org.darksamus86.encryption_mode.EncryptionMode.*;
 
-import java.util.ArrayList;
+import org.darksamus86.encryption_mode.AuthenticatedMode;
+import org.darksamus86.encryption_mode.BatchCipher;
+import org.darksamus86.encryption_mode.BitPermutation;
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.CtrMode;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.darksamus86.encryption_mode.ModeEngine;
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+import org.darksamus86.encryption_mode.PackedBits;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
+import org.darksamus86.encryption_mode.SBoxEngine;
+
+import javax.crypto.AEADBadTagException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
 /**
  * SPN wrapper — использует утилиты из EncryptionMode (статический импорт).
- * В этом файле осталась только логика SPN (encryptBlock/decryptBlock, режимы ECB/CBC, main).
+ * В этом файле осталась только логика SPN (encryptBlock/decryptBlock, режимы ECB/CBC/CTR, main).
  */
 public class SPN {
 
+    // ---------- Метрики (OperationMetrics): строковые режимы и byte[]-API отдельно ----------
+    private static final OperationStats ECB_ENCRYPT = OperationMetrics.operation("SPN", "ecbEncrypt");
+    private static final OperationStats ECB_DECRYPT = OperationMetrics.operation("SPN", "ecbDecrypt");
+    private static final OperationStats CBC_ENCRYPT = OperationMetrics.operation("SPN", "cbcEncrypt");
+    private static final OperationStats CBC_DECRYPT = OperationMetrics.operation("SPN", "cbcDecrypt");
+    private static final OperationStats CTR_ENCRYPT = OperationMetrics.operation("SPN", "ctrEncrypt");
+    private static final OperationStats CTR_DECRYPT = OperationMetrics.operation("SPN", "ctrDecrypt");
+    private static final OperationStats ECB_ENCRYPT_BYTES = OperationMetrics.operation("SPN", "ecbEncryptBytes");
+    private static final OperationStats ECB_DECRYPT_BYTES = OperationMetrics.operation("SPN", "ecbDecryptBytes");
+    private static final OperationStats CBC_ENCRYPT_BYTES = OperationMetrics.operation("SPN", "cbcEncryptBytes");
+    private static final OperationStats CBC_DECRYPT_BYTES = OperationMetrics.operation("SPN", "cbcDecryptBytes");
+    private static final OperationStats SEAL = OperationMetrics.operation("SPN", "seal");
+    private static final OperationStats OPEN = OperationMetrics.operation("SPN", "open");
+
     // ---------- Шифрование/Дешифрование одного 512-битного блока ----------
+    // Блок упаковывается в long[] один раз, подблоки по 128 бит идут через табличный S-box (SBoxEngine),
+    // P-box берётся из кэша скомпилированных перестановок (для 128 бит — тождественная, пропускается)
     public static String encryptBlock(String plaintextBits, List<String> roundKeys) {
-        // разбиваем на 4 блока по 128
-        List<String> blocks = splitIntoBlocks(plaintextBits, 128);
-        // если блоков меньше 4, дополняем нулями до 4*128
-        while (blocks.size() < 4) blocks.add("0".repeat(128));
-        List<String> encryptedBlocks = new ArrayList<>();
+        long[] words = PackedBits.fromBits(plaintextBits);
+        StringBuilder out = new StringBuilder(512);
         for (int i = 0; i < 4; i++) {
             String rk = roundKeys.get(i);
-            String xorOut = xorBits(blocks.get(i), rk);
-            String sboxOut = sboxSubstitution4bit(xorOut, false);
-            // используем pboxPermutation из EncryptionMode:
-            String pboxOut = pboxPermutation(sboxOut, false, null, sboxOut.length());
-            encryptedBlocks.add(pboxOut);
+            int len = Math.min(subBlockLength(plaintextBits, i), rk.length());
+            long[] xorOut = xorBits(PackedBits.slice(words, i * 128, 128), PackedBits.fromBits(rk));
+            PackedBits.clearTail(xorOut, len);
+            long[] sboxOut = sboxSubstitution4bit(xorOut, len, false);
+            len = (len + 3) / 4 * 4;
+            if (len == 0) continue;
+            long[] pboxOut = BitPermutation.standard(len).apply(sboxOut, len, false);
+            out.append(PackedBits.toBits(pboxOut, len));
         }
-        return String.join("", encryptedBlocks);
+        return out.toString();
     }
 
     public static String decryptBlock(String cipherBits, List<String> roundKeys) {
-        List<String> blocks = splitIntoBlocks(cipherBits, 128);
-        while (blocks.size() < 4) blocks.add("0".repeat(128));
-        List<String> decryptedBlocks = new ArrayList<>();
+        long[] words = PackedBits.fromBits(cipherBits);
+        StringBuilder out = new StringBuilder(512);
         for (int i = 0; i < 4; i++) {
-            String pboxInv = pboxPermutation(blocks.get(i), true, null, blocks.get(i).length());
-            String sboxInv = sboxSubstitution4bit(pboxInv, true);
-            String xorOut = xorBits(sboxInv, roundKeys.get(i));
-            decryptedBlocks.add(xorOut);
+            String rk = roundKeys.get(i);
+            int len = subBlockLength(cipherBits, i);
+            long[] pboxInv = BitPermutation.standard(len).apply(PackedBits.slice(words, i * 128, len), len, true);
+            long[] sboxInv = sboxSubstitution4bit(pboxInv, len, true);
+            len = Math.min((len + 3) / 4 * 4, rk.length());
+            long[] xorOut = xorBits(sboxInv, PackedBits.fromBits(rk));
+            PackedBits.clearTail(xorOut, len);
+            out.append(PackedBits.toBits(xorOut, len));
+        }
+        return out.toString();
+    }
+
+    // длина i-го 128-битного подблока; недостающие подблоки считаются нулевыми по 128 бит
+    private static int subBlockLength(String bits, int i) {
+        int start = i * 128;
+        return start < bits.length() ? Math.min(128, bits.length() - start) : 128;
+    }
+
+    // ---------- Блоки и режимы на byte[]: 64-байтные блоки, ничего не выделяется за вызов ----------
+    // Нужны четыре раундовых ключа не короче 128 бит (KeySchedule.of(roundKeys)).
+    // P-box на 128 бит тождественная, поэтому каждое слово шифруется независимо: S(x ^ k).
+    // in и out могут совпадать (та же область массива).
+    public static void encryptBlock(byte[] in, int inOff, byte[] out, int outOff, KeySchedule keys) {
+        keys.requireKeyBits(4, 128);
+        for (int w = 0; w < 8; w++) {
+            long x = PackedBits.readLong(in, inOff + w * 8) ^ keys.word(w >>> 1, w & 1);
+            PackedBits.writeLong(out, outOff + w * 8, SBoxEngine.substitute(x, false));
         }
-        return String.join("", decryptedBlocks);
+    }
+
+    public static void decryptBlock(byte[] in, int inOff, byte[] out, int outOff, KeySchedule keys) {
+        keys.requireKeyBits(4, 128);
+        for (int w = 0; w < 8; w++) {
+            long x = SBoxEngine.substitute(PackedBits.readLong(in, inOff + w * 8), true);
+            PackedBits.writeLong(out, outOff + w * 8, x ^ keys.word(w >>> 1, w & 1));
+        }
+    }
+
+    // SPN как BlockCipher (блок 64 байта) для режимов ModeEngine
+    public static BlockCipher blockCipher(KeySchedule keys) {
+        return new SPNBlockCipher(keys, null);
+    }
+
+    // ключи ровно по 128 бит дают ещё и битслайсинговый путь для длинных серий блоков
+    public static BlockCipher blockCipher(List<String> roundKeys) {
+        BitslicedSPN bitsliced = BitslicedSPN.supports(roundKeys) ? new BitslicedSPN(roundKeys) : null;
+        return new SPNBlockCipher(KeySchedule.of(roundKeys), bitsliced);
+    }
+
+    // Пакет коротких записей на одном расписании ключей: ECB по записи с PKCS#7, как в FileCipher
+    public static BatchCipher batch(String key256) {
+        return new BatchCipher(blockCipher(roundKeys(key256)), BatchCipher.Padding.PKCS7);
+    }
+
+    // Режимы — общие из ModeEngine. len — в байтах, кратно 64 (паддинг — забота вызывающего,
+    // например pkcs7Pad(byte[], 512)); iv — 64 байта начиная с ivOff (строковый IV дополняется нулями слева до 512 бит)
+    public static void ecbEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.ecbEncrypt(in, inOff, out, outOff, len, blockCipher(keys));
+        OperationMetrics.record(ECB_ENCRYPT_BYTES, t0, len, len);
+    }
+
+    public static void ecbDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.ecbDecrypt(in, inOff, out, outOff, len, blockCipher(keys));
+        OperationMetrics.record(ECB_DECRYPT_BYTES, t0, len, len);
+    }
+
+    public static void cbcEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys, byte[] iv, int ivOff) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.cbcEncrypt(in, inOff, out, outOff, len, blockCipher(keys), iv, ivOff);
+        OperationMetrics.record(CBC_ENCRYPT_BYTES, t0, len, len);
+    }
+
+    public static void cbcDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len, KeySchedule keys, byte[] iv, int ivOff) {
+        long t0 = OperationMetrics.start();
+        ModeEngine.cbcDecrypt(in, inOff, out, outOff, len, blockCipher(keys), iv, ivOff);
+        OperationMetrics.record(CBC_DECRYPT_BYTES, t0, len, len);
+    }
+
+    // Аутентифицированное шифрование за один проход (AuthenticatedMode: CTR + PMAC, тег 64 байта):
+    // в отличие от CBC + Hash.hash данные читаются один раз, и шифрование, и тег считаются параллельно.
+    // nonce — 64 байта со сброшенным старшим битом (он отведён счётчику CTR), не повторяется для одного ключа;
+    // результат — шифртекст той же длины || тег
+    public static byte[] seal(byte[] plaintext, KeySchedule keys, byte[] nonce) {
+        long t0 = OperationMetrics.start();
+        byte[] sealed = AuthenticatedMode.seal(plaintext, blockCipher(keys), nonce);
+        OperationMetrics.record(SEAL, t0, plaintext.length, sealed.length);
+        return sealed;
+    }
+
+    // неверный тег (подделка, чужой ключ или nonce) — AEADBadTagException, открытый текст не выдаётся
+    public static byte[] open(byte[] sealed, KeySchedule keys, byte[] nonce) throws AEADBadTagException {
+        long t0 = OperationMetrics.start();
+        byte[] plain = AuthenticatedMode.open(sealed, blockCipher(keys), nonce);
+        OperationMetrics.record(OPEN, t0, sealed.length, plain.length);
+        return plain;
     }
 
     // ---------- Режимы ECB / CBC для произвольной длины (с блокировкой по 512 бит) ----------
+    // Биты упаковываются в байты (хвост дополняется нулями до 512) и идут через ModeEngine с blockCipher(roundKeys);
+    // ключи, которые blockCipher не принимает (короче 128 бит или меньше четырёх), остаются на строковом пути.
+    // Диапазоны от BITSLICE_MIN_BLOCKS блоков идут через BitslicedSPN (64 блока за проход)
+    static final int BITSLICE_MIN_BLOCKS = Integer.getInteger("encryptocat.bitslice.minBlocks", 16);
+
+    // ECB: блоки независимы, длинные сообщения делятся между ядрами (ModeEngine / ParallelBlockEngine)
     public static String ecbEncrypt(String plaintextBits, List<String> roundKeys) {
+        long t0 = OperationMetrics.start();
+        String out = fitsBlockCipher(roundKeys)
+                ? ModeEngine.ecbEncrypt(plaintextBits, blockCipher(roundKeys))
+                : ParallelBlockEngine.ecb(plaintextBits, 512, range -> ecbEncryptRange(range, roundKeys));
+        OperationMetrics.record(ECB_ENCRYPT, t0, plaintextBits.length() / 8, out.length() / 8);
+        return out;
+    }
+
+    public static String ecbDecrypt(String cipherBits, List<String> roundKeys) {
+        long t0 = OperationMetrics.start();
+        String out = fitsBlockCipher(roundKeys)
+                ? ModeEngine.ecbDecrypt(cipherBits, blockCipher(roundKeys))
+                : ParallelBlockEngine.ecb(cipherBits, 512, range -> ecbDecryptRange(range, roundKeys));
+        OperationMetrics.record(ECB_DECRYPT, t0, cipherBits.length() / 8, out.length() / 8);
+        return out;
+    }
+
+    private static String ecbEncryptRange(String plaintextBits, List<String> roundKeys) {
+        if (useBitslice(plaintextBits, roundKeys)) return bitsliced(plaintextBits, roundKeys, true);
         List<String> blocks = splitIntoBlocks(plaintextBits, 512);
         StringBuilder ciphertext = new StringBuilder();
         for (String block : blocks) {
@@ -54,7 +199,8 @@ public class SPN {
         return ciphertext.toString();
     }
 
-    public static String ecbDecrypt(String cipherBits, List<String> roundKeys) {
+    private static String ecbDecryptRange(String cipherBits, List<String> roundKeys) {
+        if (useBitslice(cipherBits, roundKeys)) return bitsliced(cipherBits, roundKeys, false);
         List<String> blocks = splitIntoBlocks(cipherBits, 512);
         StringBuilder plaintext = new StringBuilder();
         for (String block : blocks) {
@@ -64,12 +210,41 @@ public class SPN {
         return plaintext.toString();
     }
 
+    // те же условия, что проверяет SPNBlockCipher: четыре ключа не короче 128 бит
+    private static boolean fitsBlockCipher(List<String> roundKeys) {
+        if (roundKeys.size() < 4) return false;
+        for (int i = 0; i < 4; i++) {
+            if (roundKeys.get(i).length() < 128) return false;
+        }
+        return true;
+    }
+
+    private static boolean useBitslice(String bits, List<String> roundKeys) {
+        return (bits.length() + 511) / 512 >= BITSLICE_MIN_BLOCKS && BitslicedSPN.supports(roundKeys);
+    }
+
+    // неполный последний блок дополняется нулями, как в скалярном пути
+    private static String bitsliced(String bits, List<String> roundKeys, boolean encrypt) {
+        int nBlocks = (bits.length() + 511) / 512;
+        long[] words = Arrays.copyOf(PackedBits.fromBits(bits), nBlocks * 8);
+        BitslicedSPN engine = new BitslicedSPN(roundKeys);
+        if (encrypt) engine.encrypt(words, words, nBlocks);
+        else engine.decrypt(words, words, nBlocks);
+        return PackedBits.toBits(words, nBlocks * 512);
+    }
+
     public static String cbcEncrypt(String plaintextBits, List<String> roundKeys, String iv) {
+        long t0 = OperationMetrics.start();
+        String out = fitsBlockCipher(roundKeys)
+                ? ModeEngine.cbcEncrypt(plaintextBits, blockCipher(roundKeys), iv)
+                : cbcEncryptBlocks(plaintextBits, roundKeys, iv);
+        OperationMetrics.record(CBC_ENCRYPT, t0, plaintextBits.length() / 8, out.length() / 8);
+        return out;
+    }
+
+    private static String cbcEncryptBlocks(String plaintextBits, List<String> roundKeys, String iv) {
         List<String> blocks = splitIntoBlocks(plaintextBits, 512);
-        String prev = leftPadTo(iv, 512); // from EncryptionMode (package-private helper is private there)
-        // NOTE: leftPadTo in EncryptionMode is private — we cannot call it here.
-        // We'll emulate leftPadTo behavior locally to avoid changing EncryptionMode:
-        prev = zfill(iv, 512);
+        String prev = leftPadTo(iv, 512);
 
         StringBuilder ciphertext = new StringBuilder();
         for (String block : blocks) {
@@ -82,29 +257,43 @@ public class SPN {
         return ciphertext.toString();
     }
 
+    // CBC-расшифровка: все блоки расшифровываются независимо (параллельно для длинных сообщений),
+    // затем один проход XOR с шифртекстом, сдвинутым на блок (IV в начале)
     public static String cbcDecrypt(String cipherBits, List<String> roundKeys, String iv) {
-        List<String> blocks = splitIntoBlocks(cipherBits, 512);
-        String prev = zfill(iv, 512);
+        long t0 = OperationMetrics.start();
+        String out = fitsBlockCipher(roundKeys)
+                ? ModeEngine.cbcDecrypt(cipherBits, blockCipher(roundKeys), iv)
+                : ParallelBlockEngine.cbcDecrypt(cipherBits, leftPadTo(iv, 512), 512, range -> ecbDecryptRange(range, roundKeys));
+        OperationMetrics.record(CBC_DECRYPT, t0, cipherBits.length() / 8, out.length() / 8);
+        return out;
+    }
 
-        StringBuilder plaintext = new StringBuilder();
-        for (String block : blocks) {
-            if (block.length() < 512) block = block + "0".repeat(512 - block.length());
-            String decrypted = decryptBlock(block, roundKeys);
-            String xored = xorBits(decrypted, prev);
-            plaintext.append(xored);
-            prev = block;
-        }
-        return plaintext.toString();
+    // ---------- Режим CTR: гамма E(IV + i), без паддинга, с произвольным доступом через seek ----------
+    public static String ctrEncrypt(String plaintextBits, List<String> roundKeys, String iv) {
+        long t0 = OperationMetrics.start();
+        String out = ctr(roundKeys, iv).process(plaintextBits);
+        OperationMetrics.record(CTR_ENCRYPT, t0, plaintextBits.length() / 8, out.length() / 8);
+        return out;
+    }
+
+    public static String ctrDecrypt(String cipherBits, List<String> roundKeys, String iv) {
+        long t0 = OperationMetrics.start();
+        String out = ctr(roundKeys, iv).process(cipherBits);
+        OperationMetrics.record(CTR_DECRYPT, t0, cipherBits.length() / 8, out.length() / 8);
+        return out;
     }
 
-    // Небольшая утилита zfill (аналог leftPadTo), чтобы не менять EncryptionMode приватные методы
-    private static String zfill(String s, int len) {
-        if (s == null) s = "";
-        if (s.length() >= len) return s.substring(0, len);
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < len - s.length(); i++) sb.append('0');
-        sb.append(s);
-        return sb.toString();
+    // гамма строится сразу для диапазона счётчиков, поэтому длинные куски идут через BitslicedSPN
+    public static CtrMode ctr(List<String> roundKeys, String iv) {
+        return CtrMode.overEcb(blocks -> ecbEncryptRange(blocks, roundKeys), 512, iv);
+    }
+
+    // Раундовые ключи из 256-битного ключа: (K1, K2, K1, K2), как в CLI
+    public static List<String> roundKeys(String key256) {
+        if (key256.length() != 256) throw new IllegalArgumentException("Ключ SPN должен быть 256 бит");
+        String K1 = key256.substring(0, 128);
+        String K2 = key256.substring(128);
+        return List.of(K1, K2, K1, K2);
     }
 
     // ---------- Main: CLI (использует функции из EncryptionMode) ----------
@@ -143,10 +332,15 @@ public class SPN {
                     }
                 }
 
-                // В простом SPN-реализации используем 4 round-ключа (K1,K2,K1,K2) как в оригинале
-                String K1 = key256.substring(0, 128);
-                String K2 = key256.substring(128);
-                List<String> roundKeys = List.of(K1, K2, K1, K2);
+                // В простом SPN-реализации используем 4 round-ключа (K1,K2,K1,K2) как в оригинале;
+                // roundKeys принимает только 256 бит (64 HEX-символа)
+                List<String> roundKeys;
+                try {
+                    roundKeys = roundKeys(key256);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Некорректный HEX-ключ.");
+                    continue;
+                }
 
                 if (choice.equals("1")) { // Шифрование
                     System.out.print("\nВведите открытый текст: ");
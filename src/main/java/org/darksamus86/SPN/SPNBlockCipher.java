@@ -0,0 +1,69 @@
+package org.darksamus86.SPN;
+
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.darksamus86.encryption_mode.PackedBits;
+
+/**
+ * SPN.encryptBlock / SPN.decryptBlock на byte[] как BlockCipher: блок 512 бит (64 байта),
+ * четыре раундовых ключа не короче 128 бит (проверяется уже при создании).
+ * Если ключи ровно по 128 бит, серии от SPN.BITSLICE_MIN_BLOCKS блоков идут через BitslicedSPN.
+ */
+final class SPNBlockCipher implements BlockCipher {
+
+    private static final int BLOCK_BYTES = 64;
+
+    private final KeySchedule keys;
+    private final BitslicedSPN bitsliced; // null, если ключи не подходят битслайсингу
+
+    SPNBlockCipher(KeySchedule keys, BitslicedSPN bitsliced) {
+        keys.requireKeyBits(4, 128);
+        this.keys = keys;
+        this.bitsliced = bitsliced;
+    }
+
+    @Override
+    public int blockSize() {
+        return BLOCK_BYTES;
+    }
+
+    @Override
+    public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        SPN.encryptBlock(in, inOff, out, outOff, keys);
+    }
+
+    @Override
+    public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        SPN.decryptBlock(in, inOff, out, outOff, keys);
+    }
+
+    @Override
+    public void encryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        if (!useBitslice(len)) {
+            BlockCipher.super.encryptBlocks(in, inOff, out, outOff, len);
+            return;
+        }
+        long[] words = PackedBits.fromBytes(in, inOff, len);
+        bitsliced.encrypt(words, words, len / BLOCK_BYTES);
+        store(words, out, outOff, len);
+    }
+
+    @Override
+    public void decryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        if (!useBitslice(len)) {
+            BlockCipher.super.decryptBlocks(in, inOff, out, outOff, len);
+            return;
+        }
+        long[] words = PackedBits.fromBytes(in, inOff, len);
+        bitsliced.decrypt(words, words, len / BLOCK_BYTES);
+        store(words, out, outOff, len);
+    }
+
+    private boolean useBitslice(int len) {
+        return bitsliced != null && len / BLOCK_BYTES >= SPN.BITSLICE_MIN_BLOCKS;
+    }
+
+    private static void store(long[] words, byte[] out, int outOff, int len) {
+        for (int w = 0; w < len / 8; w++) PackedBits.writeLong(out, outOff + w * 8, words[w]);
+    }
+}
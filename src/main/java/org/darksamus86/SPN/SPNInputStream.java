@@ -0,0 +1,133 @@
+package org.darksamus86.SPN;
+
+import static org.darksamus86.encryption_mode.EncryptionMode.pkcs7Unpad;
+
+import org.darksamus86.encryption_mode.PackedBits;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Потоковая расшифровка SPN (ECB или CBC) с буфером фиксированного размера.
+ * Последние HOLD_BACK байт открытого текста не отдаются до конца потока,
+ * чтобы снять PKCS#7-паддинг (байт паддинга может быть до 255).
+ * Результат совпадает с pkcs7Unpad(SPN.ecbDecrypt / SPN.cbcDecrypt) всего шифртекста.
+ */
+public class SPNInputStream extends FilterInputStream {
+
+    private static final int BLOCK_BYTES = SPNOutputStream.BLOCK_BYTES;
+    private static final int HOLD_BACK = 4 * BLOCK_BYTES;
+
+    private final List<String> roundKeys;
+    private final boolean cbc;
+    private String prev; // предыдущий блок шифртекста (или IV) для CBC
+    private final byte[] cipherBuffer = new byte[BLOCK_BYTES * SPNOutputStream.BUFFER_BLOCKS];
+
+    private byte[] plain = new byte[0]; // готовый к выдаче открытый текст
+    private int pos;
+    private byte[] held = new byte[0];  // придержанный хвост открытого текста
+    private boolean done;
+
+    // ECB
+    public SPNInputStream(InputStream in, List<String> roundKeys) {
+        super(in);
+        this.roundKeys = roundKeys;
+        this.cbc = false;
+    }
+
+    // CBC, iv — биты (дополняются нулями слева до 512, как в SPN.cbcDecrypt)
+    public SPNInputStream(InputStream in, List<String> roundKeys, String iv) {
+        super(in);
+        this.roundKeys = roundKeys;
+        this.cbc = true;
+        this.prev = iv;
+    }
+
+    @Override
+    public int read() throws IOException {
+        // байт прямо из готового открытого текста, без временного массива на каждый вызов
+        if (!fill()) return -1;
+        return plain[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+        int n = Math.min(len, plain.length - pos);
+        System.arraycopy(plain, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, plain.length - pos);
+            pos += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return plain.length - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset не поддерживается");
+    }
+
+    // true, если есть данные для выдачи
+    private boolean fill() throws IOException {
+        while (pos == plain.length && !done) {
+            int n = in.readNBytes(cipherBuffer, 0, cipherBuffer.length);
+            boolean last = n < cipherBuffer.length;
+            byte[] decrypted = n > 0 ? decrypt(n) : new byte[0];
+
+            byte[] all = Arrays.copyOf(held, held.length + decrypted.length);
+            System.arraycopy(decrypted, 0, all, held.length, decrypted.length);
+
+            if (last) {
+                plain = pkcs7Unpad(all);
+                held = new byte[0];
+                done = true;
+            } else {
+                int release = Math.max(0, all.length - HOLD_BACK);
+                plain = Arrays.copyOf(all, release);
+                held = Arrays.copyOfRange(all, release, all.length);
+            }
+            pos = 0;
+        }
+        return pos < plain.length;
+    }
+
+    private byte[] decrypt(int len) {
+        // неполный последний блок дополняется нулями, как в SPN.ecbDecrypt / SPN.cbcDecrypt
+        String bits = PackedBits.toBits(PackedBits.fromBytes(cipherBuffer, 0, len), len * 8);
+        String plainBits;
+        if (cbc) {
+            plainBits = SPN.cbcDecrypt(bits, roundKeys, prev);
+            int lastStart = (bits.length() - 1) / (BLOCK_BYTES * 8) * (BLOCK_BYTES * 8);
+            prev = bits.substring(lastStart);
+        } else {
+            plainBits = SPN.ecbDecrypt(bits, roundKeys);
+        }
+        return PackedBits.toBytes(PackedBits.fromBits(plainBits), plainBits.length() / 8);
+    }
+}
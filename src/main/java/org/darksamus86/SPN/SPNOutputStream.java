@@ -0,0 +1,109 @@
+package org.darksamus86.SPN;
+
+import static org.darksamus86.encryption_mode.EncryptionMode.pkcs7Pad;
+
+import org.darksamus86.encryption_mode.PackedBits;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Потоковое шифрование SPN (ECB или CBC) с буфером фиксированного размера.
+ * Полные 512-битные блоки шифруются по мере накопления буфера,
+ * при close() остаток дополняется PKCS#7 (как pkcs7Pad(bits, 512)) и дописывается.
+ * Результат совпадает с SPN.ecbEncrypt / SPN.cbcEncrypt от pkcs7Pad всего сообщения.
+ */
+public class SPNOutputStream extends FilterOutputStream {
+
+    static final int BLOCK_BYTES = 64;
+    static final int BUFFER_BLOCKS = 64;
+
+    private final List<String> roundKeys;
+    private final boolean cbc;
+    private String prev; // последний блок шифртекста (или IV) для CBC
+    private final byte[] buffer = new byte[BLOCK_BYTES * BUFFER_BLOCKS];
+    private int count;
+    private boolean closed;
+
+    // ECB
+    public SPNOutputStream(OutputStream out, List<String> roundKeys) {
+        super(out);
+        this.roundKeys = roundKeys;
+        this.cbc = false;
+    }
+
+    // CBC, iv — биты (дополняются нулями слева до 512, как в SPN.cbcEncrypt)
+    public SPNOutputStream(OutputStream out, List<String> roundKeys, String iv) {
+        super(out);
+        this.roundKeys = roundKeys;
+        this.cbc = true;
+        this.prev = iv;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        // байт сразу в буфер, без временного массива на каждый вызов
+        if (closed) throw new IOException("Поток закрыт");
+        buffer[count++] = (byte) b;
+        if (count == buffer.length) {
+            out.write(encrypt(buffer, count));
+            count = 0;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Поток закрыт");
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                out.write(encrypt(buffer, count));
+                count = 0;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // неполный блок остаётся в буфере до close(): его нельзя зашифровать без паддинга
+        int full = count / BLOCK_BYTES * BLOCK_BYTES;
+        if (full > 0) {
+            out.write(encrypt(buffer, full));
+            System.arraycopy(buffer, full, buffer, 0, count - full);
+            count -= full;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            byte[] last = pkcs7Pad(Arrays.copyOf(buffer, count), BLOCK_BYTES * 8);
+            out.write(encrypt(last, last.length));
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] encrypt(byte[] data, int len) {
+        String bits = PackedBits.toBits(PackedBits.fromBytes(data, 0, len), len * 8);
+        String cipherBits;
+        if (cbc) {
+            cipherBits = SPN.cbcEncrypt(bits, roundKeys, prev);
+            prev = cipherBits.substring(cipherBits.length() - BLOCK_BYTES * 8);
+        } else {
+            cipherBits = SPN.ecbEncrypt(bits, roundKeys);
+        }
+        return PackedBits.toBytes(PackedBits.fromBits(cipherBits), cipherBits.length() / 8);
+    }
+}
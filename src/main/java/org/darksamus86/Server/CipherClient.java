@@ -0,0 +1,80 @@
+package org.darksamus86.Server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Клиент CipherServer на одном соединении. Не потокобезопасен.
+ *
+ * call() — запрос и ожидание ответа. Для конвейера: несколько send(), затем flush()
+ * и столько же receive(); ответы приходят в порядке запросов. Конвейер, чьи ответы не помещаются
+ * в буферы сокетов, нужно вычитывать параллельно с отправкой, иначе обе стороны встанут на записи.
+ */
+public class CipherClient implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int nextId;
+
+    public CipherClient(InetAddress address, int port) throws IOException {
+        socket = new Socket(address, port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), CipherServer.BUFFER_BYTES));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), CipherServer.BUFFER_BYTES));
+    }
+
+    // --- Запрос-ответ ---
+    public byte[] call(Operation op, byte[]... args) throws IOException {
+        int id = send(op, args);
+        flush();
+        Response r = receive();
+        if (r.id() != id) throw new IOException("Ответ на чужой запрос: " + r.id() + " вместо " + id);
+        return r.result();
+    }
+
+    // строковые аргументы и результат в UTF-8
+    public String callText(Operation op, String... args) throws IOException {
+        byte[][] raw = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) raw[i] = args[i].getBytes(StandardCharsets.UTF_8);
+        return new String(call(op, raw), StandardCharsets.UTF_8);
+    }
+
+    // --- Конвейер ---
+    // возвращает id запроса; запрос уходит в сеть при flush() или переполнении буфера
+    public int send(Operation op, byte[]... args) throws IOException {
+        int id = nextId++;
+        Protocol.writeRequest(out, id, op.code(), args);
+        return id;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    public Response receive() throws IOException {
+        Protocol.Response r = Protocol.readResponse(in);
+        return new Response(r.id(), r.ok(), r.payload());
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    // ответ сервера: при ok == false payload — сообщение об ошибке в UTF-8
+    public record Response(int id, boolean ok, byte[] payload) {
+
+        public byte[] result() throws IOException {
+            if (!ok) throw new IOException("Ошибка сервера: " + new String(payload, StandardCharsets.UTF_8));
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.darksamus86.Server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервер шифрования на java.net: по виртуальному потоку на соединение, протокол — Protocol.
+ * Блокирующий ввод-вывод в виртуальном потоке не держит поток ОС, поэтому десятки тысяч
+ * одновременных соединений стоят только их буферов (BUFFER_BYTES на вход и на выход).
+ *
+ * Запросы одного соединения выполняются по порядку; ответы копятся в буфере и сбрасываются,
+ * когда во входе больше нет готовых запросов, — конвейер из N запросов уходит одной записью.
+ * Ошибка операции возвращается как STATUS_ERROR, и соединение продолжает работать;
+ * нарушение формата кадра закрывает соединение. Соединение, из которого IDLE_TIMEOUT_MILLIS не пришло
+ * ни байта (между кадрами или посреди кадра), тоже закрывается.
+ */
+public class CipherServer implements Closeable {
+
+    static final int BUFFER_BYTES = 8 * 1024;
+    private static final int BACKLOG = 4096;
+    // 0 — ждать без ограничения
+    static final int IDLE_TIMEOUT_MILLIS = Integer.getInteger("encryptocat.server.idleTimeoutMillis", 60_000);
+
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private CipherServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        this.acceptor = Thread.ofVirtual().name("cipher-server-accept").start(this::acceptLoop);
+    }
+
+    // port 0 — любой свободный порт (см. port())
+    public static CipherServer start(InetAddress address, int port) throws IOException {
+        ServerSocket ss = new ServerSocket();
+        ss.setReuseAddress(true);
+        ss.bind(new InetSocketAddress(address, port), BACKLOG);
+        return new CipherServer(ss);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    // --- Приём соединений ---
+    private void acceptLoop() {
+        while (!closed) {
+            Socket s;
+            try {
+                s = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) return;
+                pause(); // временная ошибка accept (например, исчерпаны дескрипторы) не останавливает сервер
+                continue;
+            }
+            connections.add(s);
+            if (closed) { // close() уже прошёл по connections
+                connections.remove(s);
+                closeQuietly(s);
+                return;
+            }
+            Thread.ofVirtual().name("cipher-conn-" + s.getPort()).start(() -> serve(s));
+        }
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Одно соединение: читаем кадр, выполняем, пишем ответ ---
+    private void serve(Socket s) {
+        try (s) {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), BUFFER_BYTES));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), BUFFER_BYTES));
+            Protocol.Request req;
+            while ((req = Protocol.readRequest(in)) != null) {
+                handle(req, out);
+                if (in.available() == 0) out.flush();
+            }
+            out.flush();
+        } catch (SocketTimeoutException e) {
+            // клиент молчит дольше IDLE_TIMEOUT_MILLIS
+        } catch (SocketException e) {
+            // клиент оборвал соединение или сервер закрывается
+        } catch (IOException e) {
+            // нарушение протокола: соединение закрывается
+        } finally {
+            connections.remove(s);
+        }
+    }
+
+    private static void handle(Protocol.Request req, DataOutputStream out) throws IOException {
+        Operation op = Operation.of(req.op());
+        byte[] result;
+        try {
+            if (op == null) throw new IllegalArgumentException("Неизвестная операция: " + req.op());
+            if (req.args().length != op.arity()) {
+                throw new IllegalArgumentException(op + " ожидает аргументов: " + op.arity() + ", получено " + req.args().length);
+            }
+            result = op.apply(req.args());
+        } catch (RuntimeException e) {
+            writeError(out, req.id(), e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            return;
+        }
+        // например, FEISTEL_ENCRYPT возвращает HEX вдвое длиннее запроса
+        if (!Protocol.fitsResponse(result.length)) {
+            writeError(out, req.id(), "Ответ " + result.length + " байт больше " + Protocol.MAX_FRAME_BYTES + " байт");
+            return;
+        }
+        Protocol.writeResponse(out, req.id(), Protocol.STATUS_OK, result);
+    }
+
+    private static void writeError(DataOutputStream out, int id, String msg) throws IOException {
+        byte[] payload = msg.getBytes(StandardCharsets.UTF_8);
+        // сообщение исключения может содержать данные запроса
+        if (!Protocol.fitsResponse(payload.length)) payload = Arrays.copyOf(payload, Protocol.MAX_FRAME_BYTES - 4 - 1);
+        Protocol.writeResponse(out, id, Protocol.STATUS_ERROR, payload);
+    }
+
+    // --- Остановка: закрываются сокет сервера и все открытые соединения ---
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket s : connections) closeQuietly(s);
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---------- Main: CipherServer [порт] [адрес] (по умолчанию 7070 на loopback) ----------
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        InetAddress address = args.length > 1 ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+        CipherServer server = start(address, port);
+        System.out.println("Сервер шифрования слушает " + address.getHostAddress() + ":" + server.port());
+        server.acceptor.join();
+    }
+}
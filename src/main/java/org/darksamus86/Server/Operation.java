@@ -0,0 +1,136 @@
+package org.darksamus86.Server;
+
+import org.darksamus86.EDS.EDS;
+import org.darksamus86.FeistelCipher.FeistelCipher;
+import org.darksamus86.Hash.Hash;
+import org.darksamus86.SPN.SPN;
+import org.darksamus86.StreamCipher.StreamCipher;
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.EncryptionMode;
+import org.darksamus86.encryption_mode.ModeEngine;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Операции сервера: код в кадре запроса -> вызов библиотеки.
+ *
+ * SPN работает с байтами: ключ — 32 байта (256 бит), IV — 64 байта, данные — PKCS#7 + блок 512 бит,
+ * тот же формат, что у FileCipher. Остальные операции принимают и возвращают строки UTF-8 —
+ * ровно те, что принимают и возвращают соответствующие статические методы.
+ */
+public enum Operation {
+
+    // ключ, данные -> шифртекст
+    SPN_ECB_ENCRYPT(1, 2),
+    SPN_ECB_DECRYPT(2, 2),
+    // ключ, IV, данные -> результат
+    SPN_CBC_ENCRYPT(3, 3),
+    SPN_CBC_DECRYPT(4, 3),
+    // ключ (текст), текст -> HEX (FeistelCipher.encrypt); ключ, HEX -> текст
+    FEISTEL_ENCRYPT(5, 2),
+    FEISTEL_DECRYPT(6, 2),
+    // ключ (HEX), текст -> HEX (StreamCipher.encrypt); ключ, HEX -> текст
+    STREAM_ENCRYPT(7, 2),
+    STREAM_DECRYPT(8, 2),
+    // IV, сообщение -> 32 бита строкой '0'/'1' (Hash.hash)
+    HASH(9, 2),
+    // закрытый ключ "d,n", сообщение -> подпись HEX
+    EDS_SIGN(10, 2),
+    // открытый ключ "e,n", сообщение, подпись -> 1 байт: 1 — верна, 0 — нет
+    EDS_VERIFY(11, 3);
+
+    private static final Operation[] BY_CODE = new Operation[16];
+
+    static {
+        for (Operation op : values()) BY_CODE[op.code] = op;
+    }
+
+    private final int code;
+    private final int arity;
+
+    Operation(int code, int arity) {
+        this.code = code;
+        this.arity = arity;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    // null для неизвестного кода
+    public static Operation of(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    // --- Выполнение: аргументы уже проверены на количество ---
+    byte[] apply(byte[][] args) {
+        switch (this) {
+            case SPN_ECB_ENCRYPT: {
+                byte[] data = EncryptionMode.pkcs7Pad(args[1], 512);
+                ModeEngine.ecbEncrypt(data, 0, data, 0, data.length, spn(args[0]));
+                return data;
+            }
+            case SPN_ECB_DECRYPT: {
+                byte[] data = wholeBlocks(args[1]);
+                ModeEngine.ecbDecrypt(data, 0, data, 0, data.length, spn(args[0]));
+                return EncryptionMode.pkcs7Unpad(data);
+            }
+            case SPN_CBC_ENCRYPT: {
+                byte[] data = EncryptionMode.pkcs7Pad(args[2], 512);
+                ModeEngine.cbcEncrypt(data, 0, data, 0, data.length, spn(args[0]), iv(args[1]), 0);
+                return data;
+            }
+            case SPN_CBC_DECRYPT: {
+                byte[] data = wholeBlocks(args[2]);
+                ModeEngine.cbcDecrypt(data, 0, data, 0, data.length, spn(args[0]), iv(args[1]), 0);
+                return EncryptionMode.pkcs7Unpad(data);
+            }
+            case FEISTEL_ENCRYPT:
+                return utf8(FeistelCipher.encrypt(text(args[1]), text(args[0])));
+            case FEISTEL_DECRYPT:
+                return utf8(FeistelCipher.decrypt(text(args[1]), text(args[0])));
+            case STREAM_ENCRYPT:
+                return utf8(StreamCipher.encrypt(text(args[1]), text(args[0])));
+            case STREAM_DECRYPT:
+                return utf8(StreamCipher.decrypt(text(args[1]), text(args[0])));
+            case HASH:
+                return utf8(Hash.hash(text(args[0]), text(args[1])));
+            case EDS_SIGN:
+                return utf8(new EDS("", text(args[0])).signMessage(text(args[1])));
+            case EDS_VERIFY:
+                return new byte[]{(byte) (new EDS(text(args[0]), "").verifyMessage(text(args[1]), text(args[2])) ? 1 : 0)};
+            default:
+                throw new IllegalStateException("Операция без обработчика: " + this);
+        }
+    }
+
+    private static BlockCipher spn(byte[] key) {
+        if (key.length != 32) throw new IllegalArgumentException("Ключ SPN должен быть 32 байта, получено " + key.length);
+        return SPN.blockCipher(SPN.roundKeys(BitCodec.bytesToBits(key, 0, key.length)));
+    }
+
+    private static byte[] iv(byte[] iv) {
+        if (iv.length != 64) throw new IllegalArgumentException("IV должен быть 64 байта, получено " + iv.length);
+        return iv;
+    }
+
+    private static byte[] wholeBlocks(byte[] data) {
+        if (data.length == 0 || data.length % 64 != 0) {
+            throw new IllegalArgumentException("Длина шифртекста должна быть ненулевой и кратной 64 байтам: " + data.length);
+        }
+        return data;
+    }
+
+    private static String text(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package org.darksamus86.Server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Двоичный протокол с префиксом длины (все целые — big-endian int32):
+ *
+ *   запрос:  [длина кадра][id][код операции: 1 байт]{[длина аргумента][байты аргумента]}*
+ *   ответ:   [длина кадра][id][статус: 1 байт][данные]
+ *
+ * Длина кадра не включает себя. Статус STATUS_OK — данные это результат, STATUS_ERROR — сообщение UTF-8.
+ * Клиент может слать запросы подряд, не дожидаясь ответов (конвейер): ответы идут в порядке запросов
+ * и несут тот же id.
+ */
+final class Protocol {
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    // кадр больше этого — нарушение протокола, соединение закрывается
+    static final int MAX_FRAME_BYTES = Integer.getInteger("encryptocat.server.maxFrameBytes", 16 << 20);
+    // буфер кадра растёт по мере прихода байт, начиная с этого размера: объявленная длина сама по себе памяти не занимает
+    private static final int INITIAL_FRAME_BYTES = 64 * 1024;
+
+    private Protocol() {
+    }
+
+    record Request(int id, int op, byte[][] args) {
+    }
+
+    record Response(int id, byte status, byte[] payload) {
+
+        boolean ok() {
+            return status == STATUS_OK;
+        }
+
+        String errorMessage() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    // --- Запросы ---
+    static void writeRequest(DataOutputStream out, int id, int op, byte[]... args) throws IOException {
+        long len = 4 + 1;
+        for (byte[] a : args) len += 4 + a.length;
+        if (len > MAX_FRAME_BYTES) throw new IOException("Запрос больше " + MAX_FRAME_BYTES + " байт");
+        out.writeInt((int) len);
+        out.writeInt(id);
+        out.writeByte(op);
+        for (byte[] a : args) {
+            out.writeInt(a.length);
+            out.write(a);
+        }
+    }
+
+    // null — соединение закрыто между кадрами
+    static Request readRequest(DataInputStream in) throws IOException {
+        ByteBuffer frame = readFrame(in, 5);
+        if (frame == null) return null;
+        int id = frame.getInt();
+        int op = frame.get() & 0xFF;
+        List<byte[]> args = new ArrayList<>();
+        while (frame.hasRemaining()) {
+            if (frame.remaining() < 4) throw new IOException("Обрезанная длина аргумента");
+            int n = frame.getInt();
+            if (n < 0 || n > frame.remaining()) throw new IOException("Некорректная длина аргумента: " + n);
+            byte[] a = new byte[n];
+            frame.get(a);
+            args.add(a);
+        }
+        return new Request(id, op, args.toArray(new byte[0][]));
+    }
+
+    // --- Ответы ---
+    // ответ, не влезающий в MAX_FRAME_BYTES, — IOException (проверяйте fitsResponse заранее)
+    static void writeResponse(DataOutputStream out, int id, byte status, byte[] payload) throws IOException {
+        if (!fitsResponse(payload.length)) throw new IOException("Ответ больше " + MAX_FRAME_BYTES + " байт");
+        out.writeInt(4 + 1 + payload.length);
+        out.writeInt(id);
+        out.writeByte(status);
+        out.write(payload);
+    }
+
+    static boolean fitsResponse(int payloadBytes) {
+        return payloadBytes <= MAX_FRAME_BYTES - 4 - 1;
+    }
+
+    static Response readResponse(DataInputStream in) throws IOException {
+        ByteBuffer frame = readFrame(in, 5);
+        if (frame == null) throw new EOFException("Сервер закрыл соединение");
+        int id = frame.getInt();
+        byte status = frame.get();
+        byte[] payload = new byte[frame.remaining()];
+        frame.get(payload);
+        return new Response(id, status, payload);
+    }
+
+    // --- Кадр целиком ---
+    private static ByteBuffer readFrame(DataInputStream in, int minLen) throws IOException {
+        int b0 = in.read();
+        if (b0 < 0) return null;
+        int len = (b0 << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+        if (len < minLen || len > MAX_FRAME_BYTES) throw new IOException("Некорректная длина кадра: " + len);
+        byte[] frame = new byte[Math.min(len, INITIAL_FRAME_BYTES)];
+        for (int read = 0; read < len; ) {
+            if (read == frame.length) frame = Arrays.copyOf(frame, (int) Math.min(len, 2L * frame.length));
+            int n = in.read(frame, read, frame.length - read);
+            if (n < 0) throw new EOFException("Обрезанный кадр: " + read + " из " + len + " байт");
+            read += n;
+        }
+        return ByteBuffer.wrap(frame);
+    }
+}
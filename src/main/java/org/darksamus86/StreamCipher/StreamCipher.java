@@ -1,9 +1,17 @@
 package org.darksamus86.StreamCipher;
 
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.OperationMetrics;
+import org.darksamus86.encryption_mode.OperationStats;
+
 import java.util.Scanner;
 
 public class StreamCipher {
 
+    // метрики encrypt/decrypt (OperationMetrics; выключены по умолчанию)
+    private static final OperationStats ENCRYPT = OperationMetrics.operation("StreamCipher", "encrypt");
+    private static final OperationStats DECRYPT = OperationMetrics.operation("StreamCipher", "decrypt");
+
     // ------------ Константы как в Python ------------
     static final int R1_LEN = 19;
     static final int R2_LEN = 22;
@@ -67,23 +75,11 @@ public class StreamCipher {
     }
 
     static String bitsToHex(String bits) {
-        int pad = (4 - bits.length() % 4) % 4;
-        bits = "0".repeat(pad) + bits;
-        StringBuilder hex = new StringBuilder();
-        for (int i = 0; i < bits.length(); i += 4) {
-            String nibble = bits.substring(i, i + 4);
-            hex.append(Integer.toHexString(Integer.parseInt(nibble, 2)));
-        }
-        return hex.toString();
+        return BitCodec.bitsToHex(bits, false);
     }
 
     static String hexToBits(String hex) {
-        StringBuilder bits = new StringBuilder();
-        for (char c : hex.toCharArray()) {
-            int val = Integer.parseInt(String.valueOf(c), 16);
-            bits.append(String.format("%4s", Integer.toBinaryString(val)).replace(' ', '0'));
-        }
-        return bits.toString();
+        return BitCodec.hexToBits(hex);
     }
 
     static String generateKey(int bits) {
@@ -172,6 +168,35 @@ public class StreamCipher {
         return cipher.toString();
     }
 
+    // ------------------- Публичный API (как в меню) --------------------
+    // ключ — HEX, дополняется нулями слева до 256 бит; шифртекст — HEX в нижнем регистре
+    public static String encrypt(String text, String keyHex) {
+        long t0 = OperationMetrics.start();
+        String out = bitsToHex(a5Process(text, keyBits(keyHex)));
+        OperationMetrics.record(ENCRYPT, t0, text.length(), out.length() / 2);
+        return out;
+    }
+
+    // гамма та же, что при шифровании, поэтому расшифровка — XOR шифртекста с ней
+    public static String decrypt(String cipherHex, String keyHex) {
+        long t0 = OperationMetrics.start();
+        String cipherBits = hexToBits(cipherHex);
+        int[][] regs = initRegisters(keyBits(keyHex));
+        String ks = flow(regs[0], regs[1], regs[2], cipherBits.length());
+
+        StringBuilder plainBits = new StringBuilder();
+        for (int i = 0; i < cipherBits.length(); i++) {
+            plainBits.append((cipherBits.charAt(i) - '0') ^ (ks.charAt(i) - '0'));
+        }
+        String out = bitsToText(plainBits.toString());
+        OperationMetrics.record(DECRYPT, t0, cipherBits.length() / 8, out.length());
+        return out;
+    }
+
+    private static String keyBits(String keyHex) {
+        return String.format("%256s", hexToBits(keyHex)).replace(' ', '0');
+    }
+
     // ------------------- MAIN MENU --------------------
 
     public static void main(String[] args) {
@@ -198,8 +223,7 @@ public class StreamCipher {
                     System.out.print("Введите текст для шифрования: ");
                     String text = sc.nextLine();
 
-                    String cipherBits = a5Process(text, keyBits);
-                    System.out.println("Шифртекст (hex): " + bitsToHex(cipherBits));
+                    System.out.println("Шифртекст (hex): " + encrypt(text, keyHex));
                     break;
                 }
 
@@ -210,20 +234,7 @@ public class StreamCipher {
                     System.out.print("Введите шифртекст (hex): ");
                     String cipherHex = sc.nextLine().trim();
 
-                    String keyBits = hexToBits(keyHex);
-                    keyBits = String.format("%256s", keyBits).replace(' ', '0');
-
-                    String cipherBits = hexToBits(cipherHex);
-
-                    int[][] regs = initRegisters(keyBits);
-                    String ks = flow(regs[0], regs[1], regs[2], cipherBits.length());
-
-                    StringBuilder plainBits = new StringBuilder();
-                    for (int i = 0; i < cipherBits.length(); i++) {
-                        plainBits.append((cipherBits.charAt(i) - '0') ^ (ks.charAt(i) - '0'));
-                    }
-
-                    System.out.println("Расшифрованный текст: " + bitsToText(plainBits.toString()));
+                    System.out.println("Расшифрованный текст: " + decrypt(cipherHex, keyHex));
                     break;
                 }
 
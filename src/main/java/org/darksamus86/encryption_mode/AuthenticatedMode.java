@@ -0,0 +1,219 @@
+package org.darksamus86.encryption_mode;
+
+import javax.crypto.AEADBadTagException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Single-pass authenticated encryption for any BlockCipher: CTR for secrecy plus a PMAC over
+ * nonce || ciphertext for integrity (encrypt-then-MAC, one key). The tag is one block long.
+ *
+ *   C     = CTR(P) with keystream block i = E((N + i) | MSB), MSB the top bit of the block
+ *   Sigma = E(N ^ D_1) ^ E(C_1 ^ D_2) ^ ... ^ E(C_(m-1) ^ D_m)
+ *   T     = E(Sigma ^ C_m ^ L * x^-1)  when the last block C_m is full (or C is empty, C_m = N)
+ *         = E(Sigma ^ pad10*(C_m))      when it is partial
+ *
+ * with L = E(0), L_j = L * x^j in GF(2^(8 * blockSize)) and D_i the sum of L_j over the bits of
+ * gray(i) = i ^ (i >> 1). CTR and the PMAC share the key, so the top bit is reserved for the counter
+ * domain: every counter block has it set, 0 does not, and the keystream never reveals L (knowing L
+ * gives every D_i and lets blocks be swapped without changing the tag). The nonce must have the top
+ * bit clear; apart from that the counter is plain CTR, so seal(P) equals ModeEngine.ctr under N | MSB
+ * as long as N + i does not carry into the top bit. Unlike CBC-MAC no block of the tag depends on the previous one, so both
+ * CTR and the PMAC terms of a chunk are computed independently: chunks follow ModeEngine's schedule
+ * (CHUNK_BYTES, parallel past ParallelBlockEngine's threshold) and their partial sums are XORed at the end.
+ *
+ * Each chunk is read once while it is cache-resident: encryption runs CTR then the PMAC terms of the
+ * fresh ciphertext, decryption the PMAC terms then CTR. decrypt compares tags in constant time
+ * before returning; on a mismatch it zeroes the output region and throws, so no plaintext of a
+ * forged message reaches the caller. A nonce must never repeat under one key.
+ */
+public final class AuthenticatedMode {
+
+    // L_j for j < OFFSETS covers ntz(i) of every block index an int length can reach
+    private static final int OFFSETS = 32;
+
+    private AuthenticatedMode() {
+    }
+
+    // --- Encryption: in[inOff, inOff + len) -> out, tag -> tag[tagOff, tagOff + blockSize) ---
+    public static void encrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                               BlockCipher cipher, byte[] nonce, int nonceOff, byte[] tag, int tagOff) {
+        requireNonce(nonce, nonceOff);
+        Offsets l = new Offsets(cipher);
+        byte[] sums = chunks(in, inOff, out, outOff, len, cipher, nonce, nonceOff, l, true);
+        byte[] last = Arrays.copyOfRange(out, outOff + lastBlockOff(len, cipher.blockSize()), outOff + len);
+        byte[] t = tag(sums, last, len, cipher, nonce, nonceOff, l);
+        System.arraycopy(t, 0, tag, tagOff, t.length);
+    }
+
+    // --- Decryption: verifies the tag; on failure out[outOff, outOff + len) is zeroed ---
+    public static void decrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                               BlockCipher cipher, byte[] nonce, int nonceOff, byte[] tag, int tagOff)
+            throws AEADBadTagException {
+        requireNonce(nonce, nonceOff);
+        int bs = cipher.blockSize();
+        Offsets l = new Offsets(cipher);
+        // the last block only enters the final step, after CTR may have overwritten it in place
+        byte[] last = Arrays.copyOfRange(in, inOff + lastBlockOff(len, bs), inOff + len);
+        byte[] expected = Arrays.copyOfRange(tag, tagOff, tagOff + bs);
+        byte[] sums = chunks(in, inOff, out, outOff, len, cipher, nonce, nonceOff, l, false);
+        if (!MessageDigest.isEqual(expected, tag(sums, last, len, cipher, nonce, nonceOff, l))) {
+            Arrays.fill(out, outOff, outOff + len, (byte) 0);
+            throw new AEADBadTagException("authentication tag mismatch");
+        }
+    }
+
+    // --- Whole messages: ciphertext || tag ---
+    public static byte[] seal(byte[] plaintext, BlockCipher cipher, byte[] nonce) {
+        byte[] sealed = new byte[plaintext.length + cipher.blockSize()];
+        encrypt(plaintext, 0, sealed, 0, plaintext.length, cipher, nonce, 0, sealed, plaintext.length);
+        return sealed;
+    }
+
+    public static byte[] open(byte[] sealed, BlockCipher cipher, byte[] nonce) throws AEADBadTagException {
+        int len = sealed.length - cipher.blockSize();
+        if (len < 0) throw new AEADBadTagException("input is shorter than the tag: " + sealed.length + " bytes");
+        byte[] plain = new byte[len];
+        decrypt(sealed, 0, plain, 0, len, cipher, nonce, 0, sealed, len);
+        return plain;
+    }
+
+    // --- Chunks: CTR and the PMAC terms E(C_k ^ D_(k+2)) of every ciphertext block but the last ---
+    private static byte[] chunks(byte[] in, int inOff, byte[] out, int outOff, int len, BlockCipher cipher,
+                                 byte[] nonce, int nonceOff, Offsets l, boolean encrypt) {
+        int bs = cipher.blockSize();
+        int chunk = ModeEngine.chunkBytes(bs);
+        int lastBlock = (len - 1) / bs; // excluded from the terms; -1 ... 0 when len == 0
+        byte[] sums = new byte[Math.max(1, (len + chunk - 1) / chunk) * bs];
+        ModeEngine.forEachChunk(len, bs, (start, n) -> {
+            if (!encrypt) macTerms(in, inOff, start, n, lastBlock, cipher, l, sums, start / chunk * bs);
+            ctr(in, inOff, out, outOff, start, n, cipher, nonce, nonceOff);
+            if (encrypt) macTerms(out, outOff, start, n, lastBlock, cipher, l, sums, start / chunk * bs);
+        });
+        return sums;
+    }
+
+    // like ModeEngine.ctr, but every counter block gets the top bit so none of them can equal 0
+    private static void ctr(byte[] in, int inOff, byte[] out, int outOff, int start, int n,
+                            BlockCipher cipher, byte[] nonce, int nonceOff) {
+        int bs = cipher.blockSize();
+        int nBlocks = (n + bs - 1) / bs;
+        byte[] ks = new byte[nBlocks * bs];
+        System.arraycopy(nonce, nonceOff, ks, 0, bs);
+        ModeEngine.addCounter(ks, 0, bs, start / bs);
+        for (int b = 1; b < nBlocks; b++) {
+            System.arraycopy(ks, (b - 1) * bs, ks, b * bs, bs);
+            ModeEngine.addCounter(ks, b * bs, bs, 1);
+        }
+        for (int b = 0; b < nBlocks; b++) ks[b * bs] |= (byte) 0x80;
+        cipher.encryptBlocks(ks, 0, ks, 0, ks.length);
+        ModeEngine.xor(in, inOff + start, ks, 0, out, outOff + start, n);
+    }
+
+    private static void macTerms(byte[] c, int cOff, int start, int n, int lastBlock, BlockCipher cipher,
+                                 Offsets l, byte[] sums, int sumOff) {
+        int bs = cipher.blockSize();
+        int first = start / bs;
+        int count = Math.min(first + (n + bs - 1) / bs, lastBlock) - first;
+        if (count <= 0) return;
+        byte[] buf = new byte[count * bs];
+        byte[] delta = l.offset(first + 2L);
+        for (int b = 0; b < count; b++) {
+            ModeEngine.xor(c, cOff + start + b * bs, delta, 0, buf, b * bs, bs);
+            ModeEngine.xor(delta, 0, l.l[Long.numberOfTrailingZeros(first + b + 3L)], 0, delta, 0, bs);
+        }
+        cipher.encryptBlocks(buf, 0, buf, 0, buf.length);
+        for (int b = 0; b < count; b++) ModeEngine.xor(sums, sumOff, buf, b * bs, sums, sumOff, bs);
+    }
+
+    // --- Final step: nonce term, last block, one more encryption ---
+    private static byte[] tag(byte[] sums, byte[] last, int len, BlockCipher cipher, byte[] nonce, int nonceOff, Offsets l) {
+        int bs = cipher.blockSize();
+        byte[] sigma = new byte[bs];
+        for (int off = 0; off < sums.length; off += bs) ModeEngine.xor(sigma, 0, sums, off, sigma, 0, bs);
+        if (len == 0) {
+            last = Arrays.copyOfRange(nonce, nonceOff, nonceOff + bs);
+        } else {
+            byte[] term = new byte[bs];
+            ModeEngine.xor(nonce, nonceOff, l.l[0], 0, term, 0, bs); // D_1 = L_0
+            cipher.encryptBlock(term, 0, term, 0);
+            ModeEngine.xor(sigma, 0, term, 0, sigma, 0, bs);
+        }
+        ModeEngine.xor(sigma, 0, last, 0, sigma, 0, last.length);
+        if (last.length == bs) ModeEngine.xor(sigma, 0, l.lInv, 0, sigma, 0, bs);
+        else sigma[last.length] ^= (byte) 0x80;
+        cipher.encryptBlock(sigma, 0, sigma, 0);
+        return sigma;
+    }
+
+    private static void requireNonce(byte[] nonce, int nonceOff) {
+        if ((nonce[nonceOff] & 0x80) != 0) {
+            throw new IllegalArgumentException("the top bit of the nonce is reserved for the counter domain");
+        }
+    }
+
+    private static int lastBlockOff(int len, int bs) {
+        return len == 0 ? 0 : (len - 1) / bs * bs;
+    }
+
+    // --- Offsets: L = E(0), L_j = L * x^j, L * x^-1 ---
+    private static final class Offsets {
+        final byte[][] l = new byte[OFFSETS][];
+        final byte[] lInv;
+
+        Offsets(BlockCipher cipher) {
+            int bs = cipher.blockSize();
+            int poly = reductionPolynomial(bs);
+            byte[] x = new byte[bs];
+            cipher.encryptBlock(x, 0, x, 0);
+            lInv = x.clone();
+            halve(lInv, poly);
+            for (int j = 0; j < OFFSETS; j++) {
+                l[j] = x.clone();
+                twice(x, poly);
+            }
+        }
+
+        // D_i: the sum of L_j over the set bits of gray(i)
+        byte[] offset(long i) {
+            long gray = i ^ (i >>> 1);
+            byte[] d = new byte[l[0].length];
+            for (int j = 0; gray != 0; j++, gray >>>= 1) {
+                if ((gray & 1) != 0) ModeEngine.xor(d, 0, l[j], 0, d, 0, d.length);
+            }
+            return d;
+        }
+    }
+
+    // low terms of the primitive polynomial for GF(2^(8 * bs)), e.g. x^512 + x^8 + x^5 + x^2 + 1
+    private static int reductionPolynomial(int bs) {
+        return switch (bs) {
+            case 16 -> 0x87;
+            case 32 -> 0x425;
+            case 64 -> 0x125;
+            default -> throw new IllegalArgumentException("unsupported block size for PMAC: " + bs + " bytes");
+        };
+    }
+
+    // a = a * x, big-endian
+    private static void twice(byte[] a, int poly) {
+        int carry = (a[0] & 0x80) != 0 ? 1 : 0;
+        for (int i = 0; i < a.length - 1; i++) a[i] = (byte) ((a[i] << 1) | ((a[i + 1] & 0xFF) >>> 7));
+        a[a.length - 1] <<= 1;
+        if (carry != 0) {
+            a[a.length - 1] ^= (byte) poly;
+            a[a.length - 2] ^= (byte) (poly >>> 8);
+        }
+    }
+
+    // a = a * x^-1: add the polynomial when the low bit is set, then shift the x^n term down to x^(n-1)
+    private static void halve(byte[] a, int poly) {
+        int carry = a[a.length - 1] & 1;
+        if (carry != 0) {
+            a[a.length - 1] ^= (byte) poly;
+            a[a.length - 2] ^= (byte) (poly >>> 8);
+        }
+        for (int i = a.length - 1; i > 0; i--) a[i] = (byte) (((a[i] & 0xFF) >>> 1) | (a[i - 1] << 7));
+        a[0] = (byte) (((a[0] & 0xFF) >>> 1) | (carry << 7));
+    }
+}
@@ -0,0 +1,123 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Encrypts many small, independent records (ECB per record) with one BlockCipher, i.e. one key schedule.
+ * Records are padded one by one (PKCS#7 or zero fill), and results come back in input order.
+ *
+ * Encryption pads straight into the result array and encrypts it in place, so a record costs exactly one
+ * allocation. PKCS#7 decryption goes through a scratch buffer that is reused by every record of a task.
+ * Batches whose total size reaches ParallelBlockEngine's threshold are split into groups of
+ * RECORDS_PER_TASK records on the common ForkJoinPool. Instances are immutable and thread-safe.
+ */
+public final class BatchCipher {
+
+    public enum Padding {
+        // always 1..blockSize bytes of value n, removed on decryption
+        PKCS7,
+        // zeros up to the next block boundary (nothing for empty or aligned records), kept on decryption
+        ZERO
+    }
+
+    // records per task: enough work to amortize scheduling for 50-500 byte records
+    static final int RECORDS_PER_TASK = 256;
+
+    private final BlockCipher cipher;
+    private final Padding padding;
+
+    public BatchCipher(BlockCipher cipher, Padding padding) {
+        this.cipher = cipher;
+        this.padding = padding;
+    }
+
+    public BlockCipher cipher() {
+        return cipher;
+    }
+
+    public Padding padding() {
+        return padding;
+    }
+
+    // --- Arrays ---
+    public byte[][] encrypt(byte[][] records) {
+        byte[][] out = new byte[records.length][];
+        forEachGroup(records, (from, to) -> {
+            for (int i = from; i < to; i++) out[i] = encryptRecord(records[i]);
+        });
+        return out;
+    }
+
+    public byte[][] decrypt(byte[][] records) {
+        int bs = cipher.blockSize();
+        for (int i = 0; i < records.length; i++) {
+            if (records[i].length % bs != 0) {
+                throw new IllegalArgumentException("record " + i + " is not a multiple of " + bs + " bytes: " + records[i].length);
+            }
+        }
+        byte[][] out = new byte[records.length][];
+        forEachGroup(records, (from, to) -> {
+            byte[] scratch = new byte[0];
+            for (int i = from; i < to; i++) {
+                byte[] r = records[i];
+                if (padding == Padding.ZERO) {
+                    out[i] = new byte[r.length];
+                    cipher.decryptBlocks(r, 0, out[i], 0, r.length);
+                    continue;
+                }
+                if (scratch.length < r.length) scratch = new byte[Math.max(r.length, scratch.length * 2)];
+                cipher.decryptBlocks(r, 0, scratch, 0, r.length);
+                out[i] = Arrays.copyOf(scratch, r.length - pkcs7Length(scratch, r.length));
+            }
+        });
+        return out;
+    }
+
+    // --- Lists ---
+    public List<byte[]> encrypt(List<byte[]> records) {
+        return Arrays.asList(encrypt(records.toArray(new byte[0][])));
+    }
+
+    public List<byte[]> decrypt(List<byte[]> records) {
+        return Arrays.asList(decrypt(records.toArray(new byte[0][])));
+    }
+
+    // --- One record ---
+    private byte[] encryptRecord(byte[] record) {
+        int bs = cipher.blockSize();
+        int padded = padding == Padding.PKCS7
+                ? (record.length / bs + 1) * bs
+                : (record.length + bs - 1) / bs * bs;
+        byte[] out = Arrays.copyOf(record, padded);
+        if (padding == Padding.PKCS7) Arrays.fill(out, record.length, padded, (byte) (padded - record.length));
+        cipher.encryptBlocks(out, 0, out, 0, padded);
+        return out;
+    }
+
+    // same leniency as EncryptionMode.pkcs7Unpad: an out-of-range pad byte removes nothing
+    private static int pkcs7Length(byte[] data, int len) {
+        if (len == 0) return 0;
+        int padVal = data[len - 1] & 0xFF;
+        return padVal <= 0 || padVal > len ? 0 : padVal;
+    }
+
+    // --- Scheduling ---
+    @FunctionalInterface
+    private interface GroupFunction {
+        void apply(int from, int to);
+    }
+
+    private static void forEachGroup(byte[][] records, GroupFunction fn) {
+        int nGroups = (records.length + RECORDS_PER_TASK - 1) / RECORDS_PER_TASK;
+        long totalBytes = 0;
+        for (byte[] r : records) totalBytes += r.length;
+        if (nGroups <= 1 || totalBytes * 8 < ParallelBlockEngine.getThresholdBits()) {
+            fn.apply(0, records.length);
+            return;
+        }
+        IntStream.range(0, nGroups).parallel().forEach(g ->
+                fn.apply(g * RECORDS_PER_TASK, Math.min(records.length, (g + 1) * RECORDS_PER_TASK)));
+    }
+}
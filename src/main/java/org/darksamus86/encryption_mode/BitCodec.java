@@ -0,0 +1,164 @@
+package org.darksamus86.encryption_mode;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Table-driven, single-pass conversions between bytes, hex and '0'/'1' bit strings.
+ * Every method is linear in its input and allocates only its result.
+ * The buffer variants convert as much as fits and advance both buffer positions,
+ * so they can be called repeatedly over streamed data.
+ *
+ * Malformed input raises NumberFormatException, which is what the BigInteger / Integer.parseInt
+ * conversions this replaces threw.
+ */
+public final class BitCodec {
+
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+
+    // ASCII char -> nibble value, -1 for anything that is not a hex digit
+    private static final byte[] HEX_VALUE = new byte[128];
+
+    // byte value -> its 8 bit chars, flattened
+    private static final char[] BYTE_BITS = new char[256 * 8];
+
+    static {
+        Arrays.fill(HEX_VALUE, (byte) -1);
+        for (int i = 0; i < 10; i++) HEX_VALUE['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUE['a' + i] = (byte) (10 + i);
+            HEX_VALUE['A' + i] = (byte) (10 + i);
+        }
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) BYTE_BITS[b * 8 + i] = (char) ('0' + ((b >>> (7 - i)) & 1));
+        }
+    }
+
+    private BitCodec() {
+    }
+
+    // --- bits <-> hex ---
+    // the bit string is left-padded with zeros to a whole number of nibbles
+    public static String bitsToHex(CharSequence bits, boolean upperCase) {
+        char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        int n = bits.length();
+        int hexLen = (n + 3) / 4;
+        char[] out = new char[hexLen];
+        int i = n - hexLen * 4; // negative: virtual leading zeros
+        for (int h = 0; h < hexLen; h++) {
+            int v = 0;
+            for (int k = 0; k < 4; k++, i++) {
+                v = (v << 1) | (i < 0 ? 0 : bitValue(bits.charAt(i)));
+            }
+            out[h] = digits[v];
+        }
+        return new String(out);
+    }
+
+    // four bits per hex digit, upper or lower case accepted
+    public static String hexToBits(CharSequence hex) {
+        int n = hex.length();
+        char[] out = new char[n * 4];
+        for (int h = 0; h < n; h++) {
+            int v = hexValue(hex.charAt(h));
+            out[h * 4] = (char) ('0' + ((v >>> 3) & 1));
+            out[h * 4 + 1] = (char) ('0' + ((v >>> 2) & 1));
+            out[h * 4 + 2] = (char) ('0' + ((v >>> 1) & 1));
+            out[h * 4 + 3] = (char) ('0' + (v & 1));
+        }
+        return new String(out);
+    }
+
+    // --- bytes <-> hex ---
+    public static String bytesToHex(byte[] data, int off, int len, boolean upperCase) {
+        char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        char[] out = new char[len * 2];
+        for (int i = 0; i < len; i++) {
+            int b = data[off + i] & 0xFF;
+            out[i * 2] = digits[b >>> 4];
+            out[i * 2 + 1] = digits[b & 0xF];
+        }
+        return new String(out);
+    }
+
+    public static byte[] hexToBytes(CharSequence hex) {
+        int n = hex.length();
+        if ((n & 1) != 0) throw new NumberFormatException("odd number of hex digits: " + n);
+        byte[] out = new byte[n / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) ((hexValue(hex.charAt(i * 2)) << 4) | hexValue(hex.charAt(i * 2 + 1)));
+        }
+        return out;
+    }
+
+    // --- bytes <-> bits ---
+    public static String bytesToBits(byte[] data, int off, int len) {
+        char[] out = new char[len * 8];
+        for (int i = 0; i < len; i++) {
+            System.arraycopy(BYTE_BITS, (data[off + i] & 0xFF) * 8, out, i * 8, 8);
+        }
+        return new String(out);
+    }
+
+    public static byte[] bitsToBytes(CharSequence bits) {
+        int n = bits.length();
+        if ((n & 7) != 0) throw new NumberFormatException("bit count is not a multiple of 8: " + n);
+        byte[] out = new byte[n / 8];
+        for (int i = 0; i < out.length; i++) {
+            int v = 0;
+            for (int k = 0; k < 8; k++) v = (v << 1) | bitValue(bits.charAt(i * 8 + k));
+            out[i] = (byte) v;
+        }
+        return out;
+    }
+
+    // --- Streaming over buffers: convert whole units while both sides have room ---
+    public static void encodeHex(ByteBuffer src, CharBuffer dst, boolean upperCase) {
+        char[] digits = upperCase ? HEX_UPPER : HEX_LOWER;
+        while (src.hasRemaining() && dst.remaining() >= 2) {
+            int b = src.get() & 0xFF;
+            dst.put(digits[b >>> 4]);
+            dst.put(digits[b & 0xF]);
+        }
+    }
+
+    public static void decodeHex(CharBuffer src, ByteBuffer dst) {
+        while (src.remaining() >= 2 && dst.hasRemaining()) {
+            int hi = hexValue(src.get(src.position()));
+            int lo = hexValue(src.get(src.position() + 1));
+            src.position(src.position() + 2);
+            dst.put((byte) ((hi << 4) | lo));
+        }
+    }
+
+    public static void encodeBits(ByteBuffer src, CharBuffer dst) {
+        while (src.hasRemaining() && dst.remaining() >= 8) {
+            dst.put(BYTE_BITS, (src.get() & 0xFF) * 8, 8);
+        }
+    }
+
+    public static void decodeBits(CharBuffer src, ByteBuffer dst) {
+        while (src.remaining() >= 8 && dst.hasRemaining()) {
+            int p = src.position();
+            int v = 0;
+            for (int k = 0; k < 8; k++) v = (v << 1) | bitValue(src.get(p + k));
+            src.position(p + 8);
+            dst.put((byte) v);
+        }
+    }
+
+    // --- Single digits ---
+    private static int hexValue(char c) {
+        int v = c < 128 ? HEX_VALUE[c] : -1;
+        if (v < 0) throw new NumberFormatException("not a hex digit: '" + c + "'");
+        return v;
+    }
+
+    private static int bitValue(char c) {
+        if (c == '0') return 0;
+        if (c == '1') return 1;
+        throw new NumberFormatException("not a bit: '" + c + "'");
+    }
+}
@@ -0,0 +1,211 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * P-box compiled once from a pbox map (1-based source -> dest, same format as pboxPermutation)
+ * together with its inverse. Bits that move by the same distance between the same pair of words
+ * are grouped into one mask, so applying the permutation is a short list of
+ * (word & mask) rotate shift operations instead of a walk over map entries.
+ * Chunks of 16/32/64 bits are permuted several at a time inside one word,
+ * chunks of 128/256/... bits word by word; identity permutations are skipped entirely.
+ */
+public final class BitPermutation {
+
+    // null-map permutations (DEFAULT_PBOX_MAP_16 for 16 bits, identity otherwise) by chunk size
+    private static final Map<Integer, BitPermutation> STANDARD = new ConcurrentHashMap<>();
+    // compiled caller maps by (map instance, chunk size); cleared when full, a hit is re-checked against the map's contents
+    private static final int COMPILED_CAPACITY = 64;
+    private static final Map<CompiledKey, BitPermutation> COMPILED = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Integer> pboxMap;
+    private final int chunkSize;
+    private final Plan forward;
+    private final Plan inverse;
+
+    private BitPermutation(Map<Integer, Integer> pboxMap, int chunkSize, int[] forwardSrc, int[] inverseSrc) {
+        this.pboxMap = pboxMap;
+        this.chunkSize = chunkSize;
+        this.forward = new Plan(forwardSrc, chunkSize);
+        this.inverse = forwardSrc == inverseSrc ? forward : new Plan(inverseSrc, chunkSize);
+    }
+
+    // --- Construction ---
+    // compiled permutations are immutable and shared: the same map and chunk size compile once
+    // (a map modified after its first use is noticed and compiled again)
+    public static BitPermutation compile(Map<Integer, Integer> pboxMap, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        if (pboxMap == null) return standard(chunkSize);
+        CompiledKey key = new CompiledKey(pboxMap, chunkSize);
+        BitPermutation cached = COMPILED.get(key);
+        if (cached != null && cached.pboxMap.equals(pboxMap)) return cached;
+        Map<Integer, Integer> copy = new LinkedHashMap<>(pboxMap);
+        BitPermutation p = new BitPermutation(copy, chunkSize, sourceIndex(false, copy, chunkSize), sourceIndex(true, copy, chunkSize));
+        if (COMPILED.size() >= COMPILED_CAPACITY) COMPILED.clear();
+        COMPILED.put(key, p);
+        return p;
+    }
+
+    // keyed by the caller's map instance, so a lookup does not hash its contents
+    private record CompiledKey(Map<Integer, Integer> map, int chunkSize) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CompiledKey k && k.map == map && k.chunkSize == chunkSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(map) * 31 + chunkSize;
+        }
+    }
+
+    // same permutation pboxPermutation uses when pboxMap == null (the inverse flag is ignored there)
+    public static BitPermutation standard(int chunkSize) {
+        return STANDARD.computeIfAbsent(chunkSize, cs -> {
+            int[] src = sourceIndex(false, null, cs);
+            return new BitPermutation(null, cs, src, src);
+        });
+    }
+
+    // the same pbox map compiled for another chunk size
+    public BitPermutation forChunkSize(int newChunkSize) {
+        return newChunkSize == chunkSize ? this : compile(pboxMap, newChunkSize);
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isIdentity(boolean inverse) {
+        return (inverse ? this.inverse : forward).identity;
+    }
+
+    // dest -> source bit index inside one chunk (-1 when nothing maps there); a copy
+    public int[] sourceIndices(boolean inverse) {
+        return (inverse ? this.inverse : forward).srcOf.clone();
+    }
+
+    // --- Application ---
+    // permutes ceil(nBits / chunkSize) chunks (the last one zero-padded); result holds whole chunks
+    public long[] apply(long[] words, int nBits, boolean inverse) {
+        if (nBits == 0) return new long[0];
+        int outBits = (nBits + chunkSize - 1) / chunkSize * chunkSize;
+        long[] src = Arrays.copyOf(words, PackedBits.wordsFor(outBits));
+        PackedBits.clearTail(src, nBits);
+        Plan plan = inverse ? this.inverse : forward;
+        if (plan.identity) return src;
+
+        long[] out = new long[src.length];
+        if (plan.unitWords > 0) {
+            plan.applyUnits(src, 0, out, 0, src.length);
+        } else {
+            int[] srcOf = plan.srcOf;
+            for (int base = 0; base < outBits; base += chunkSize) {
+                for (int d = 0; d < chunkSize; d++) {
+                    int s = srcOf[d];
+                    if (s >= 0 && PackedBits.getBit(src, base + s) == 1) PackedBits.setBit(out, base + d);
+                }
+            }
+        }
+        return out;
+    }
+
+    // dest (0-based) -> source (0-based) or -1 when nothing maps to dest; later map entries win,
+    // exactly like the table walk in pboxPermutation
+    static int[] sourceIndex(boolean inverse, Map<Integer, Integer> pboxMap, int chunkSize) {
+        Map<Integer, Integer> table;
+        if (pboxMap == null) {
+            table = chunkSize == 16 ? EncryptionMode.DEFAULT_PBOX_MAP_16 : null;
+        } else if (inverse) {
+            // invert map
+            table = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Integer> e : pboxMap.entrySet()) table.put(e.getValue(), e.getKey());
+        } else {
+            table = pboxMap;
+        }
+
+        int[] srcOf = new int[chunkSize];
+        if (table == null) {
+            for (int d = 0; d < chunkSize; d++) srcOf[d] = d;
+            return srcOf;
+        }
+        Arrays.fill(srcOf, -1);
+        for (Map.Entry<Integer, Integer> e : table.entrySet()) {
+            int src = e.getKey();
+            int dest = e.getValue();
+            if (src >= 1 && src <= chunkSize && dest >= 1 && dest <= chunkSize) {
+                srcOf[dest - 1] = src - 1;
+            }
+        }
+        return srcOf;
+    }
+
+    // --- Compiled mask/rotate program for one direction ---
+    private static final class Plan {
+        final int[] srcOf;
+        final boolean identity;
+        // words per independent unit; 0 means the chunk size needs the bit-by-bit path
+        final int unitWords;
+        final int[] srcWord;
+        final int[] dstWord;
+        final long[] mask;
+        final int[] rot;
+
+        Plan(int[] srcOf, int chunkSize) {
+            this.srcOf = srcOf;
+            boolean id = true;
+            for (int d = 0; d < chunkSize && id; d++) id = srcOf[d] == d;
+            this.identity = id;
+
+            int replicas;
+            if (64 % chunkSize == 0) {
+                unitWords = 1;
+                replicas = 64 / chunkSize;
+            } else if (chunkSize % 64 == 0) {
+                unitWords = chunkSize / 64;
+                replicas = 1;
+            } else {
+                unitWords = 0;
+                replicas = 0;
+            }
+
+            // group moves by (source word, dest word, distance) -> one mask each
+            Map<Long, Long> groups = new LinkedHashMap<>();
+            for (int r = 0; r < replicas; r++) {
+                for (int d = 0; d < chunkSize; d++) {
+                    int s = srcOf[d];
+                    if (s < 0) continue;
+                    int bs = r * chunkSize + s;
+                    int bd = r * chunkSize + d;
+                    long key = ((long) (bs >>> 6) << 40) | ((long) (bd >>> 6) << 16) | (((bs & 63) - (bd & 63)) & 0xFFFF);
+                    groups.merge(key, 1L << (63 - (bs & 63)), (a, b) -> a | b);
+                }
+            }
+            int n = groups.size();
+            srcWord = new int[n];
+            dstWord = new int[n];
+            mask = new long[n];
+            rot = new int[n];
+            int k = 0;
+            for (Map.Entry<Long, Long> e : groups.entrySet()) {
+                long key = e.getKey();
+                srcWord[k] = (int) (key >>> 40);
+                dstWord[k] = (int) (key >>> 16) & 0xFFFFFF;
+                rot[k] = (short) (key & 0xFFFF);
+                mask[k] = e.getValue();
+                k++;
+            }
+        }
+
+        void applyUnits(long[] src, int srcOff, long[] dst, int dstOff, int nWords) {
+            for (int base = 0; base < nWords; base += unitWords) {
+                for (int k = 0; k < mask.length; k++) {
+                    dst[dstOff + base + dstWord[k]] |= Long.rotateLeft(src[srcOff + base + srcWord[k]] & mask[k], rot[k]);
+                }
+            }
+        }
+    }
+}
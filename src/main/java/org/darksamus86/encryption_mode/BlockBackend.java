@@ -0,0 +1,80 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.Optional;
+
+/**
+ * Chooses the BlockOps implementation used by EncryptionMode's packed primitives.
+ * "vector" needs VectorBlockOps, which is only built with the Maven profile -Pvector (src/vector/java),
+ * and the incubator module at run time (--add-modules jdk.incubator.vector); when either is missing
+ * or the hardware is too narrow, "auto" falls back to the scalar loops.
+ * Initial choice: -Dencryptocat.blockOps=auto|vector|scalar (default auto, "vector" also falls back);
+ * switchable at runtime via use().
+ */
+public final class BlockBackend {
+
+    private static final BlockOps VECTOR = loadVector();
+
+    private static volatile BlockOps current = initial(System.getProperty("encryptocat.blockOps", "auto"));
+
+    private BlockBackend() {
+    }
+
+    // the vector class is loaded reflectively so this class never links against the incubator module
+    // and still loads when the class was not built
+    private static BlockOps loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (BlockOps) Class.forName("org.darksamus86.encryption_mode.VectorBlockOps")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // startup choice never fails: anything but "scalar" means the vector backend if it loaded
+    private static BlockOps initial(String name) {
+        if (name.equals("scalar") || VECTOR == null) return ScalarBlockOps.INSTANCE;
+        return VECTOR;
+    }
+
+    // --- Available backends ---
+    public static BlockOps scalar() {
+        return ScalarBlockOps.INSTANCE;
+    }
+
+    public static Optional<BlockOps> vector() {
+        return Optional.ofNullable(VECTOR);
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    // --- Selection ---
+    public static BlockOps current() {
+        return current;
+    }
+
+    public static void use(BlockOps ops) {
+        if (ops == null) throw new IllegalArgumentException("ops must not be null");
+        current = ops;
+    }
+
+    // "scalar", "vector" or "auto"; asking for "vector" when it is unavailable is an error
+    public static void use(String name) {
+        switch (name) {
+            case "auto":
+                current = initial(name);
+                break;
+            case "scalar":
+                current = ScalarBlockOps.INSTANCE;
+                break;
+            case "vector":
+                if (VECTOR == null) throw new IllegalStateException("vector backend unavailable: build with -Pvector and run with --add-modules jdk.incubator.vector");
+                current = VECTOR;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown block backend: " + name);
+        }
+    }
+}
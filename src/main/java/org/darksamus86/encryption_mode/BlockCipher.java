@@ -0,0 +1,27 @@
+package org.darksamus86.encryption_mode;
+
+/**
+ * A keyed block cipher over byte[] blocks, the unit ModeEngine chains into ECB / CBC / CTR / CFB / OFB.
+ * Block functions read blockSize() bytes from in[inOff] and write as many to out[outOff];
+ * in and out may be the same array region. Implementations are immutable and thread-safe.
+ */
+public interface BlockCipher {
+
+    // block size in bytes
+    int blockSize();
+
+    void encryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    void decryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    // --- Runs of whole blocks: len is a multiple of blockSize(); override when a batch is cheaper ---
+    default void encryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        int bs = blockSize();
+        for (int off = 0; off < len; off += bs) encryptBlock(in, inOff + off, out, outOff + off);
+    }
+
+    default void decryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        int bs = blockSize();
+        for (int off = 0; off < len; off += bs) decryptBlock(in, inOff + off, out, outOff + off);
+    }
+}
@@ -0,0 +1,16 @@
+package org.darksamus86.encryption_mode;
+
+/**
+ * Word-level primitives behind the packed xorBits / sboxSubstitution4bit overloads.
+ * Implementations must give bit-identical results; BlockBackend picks the active one.
+ */
+public interface BlockOps {
+
+    String name();
+
+    // out[i] = a[i] ^ b[i] for i < nWords
+    void xor(long[] a, long[] b, long[] out, int nWords);
+
+    // first nNibbles nibbles of words through SBOX_HEX (or INV_SBOX_HEX), in place; the rest is left untouched
+    void substitute(long[] words, int nNibbles, boolean inverse);
+}
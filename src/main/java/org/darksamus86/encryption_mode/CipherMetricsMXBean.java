@@ -0,0 +1,16 @@
+package org.darksamus86.encryption_mode;
+
+/**
+ * JMX view of OperationMetrics, registered as OperationMetrics.OBJECT_NAME.
+ */
+public interface CipherMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // one entry per operation that has been looked up, sorted by algorithm and operation
+    OperationSnapshot[] getOperations();
+
+    void reset();
+}
@@ -0,0 +1,92 @@
+package org.darksamus86.encryption_mode;
+
+import java.math.BigInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Counter (CTR) mode over any block encryption function.
+ * Keystream block i is E(iv + i mod 2^blockSize); data is XORed with the keystream,
+ * so encryption and decryption are the same operation and no padding is needed.
+ * Any bit offset can be reached directly with seek(), and long keystream runs are
+ * generated across cores by ParallelBlockEngine.
+ * Instances keep a read position and are not thread-safe; keystream() is stateless.
+ */
+public final class CtrMode {
+
+    private final UnaryOperator<String> blockEncrypt;
+    private final boolean batched;
+    private final int blockSizeBits;
+    private final BigInteger initialCounter;
+    private final BigInteger modulus;
+    private long position;
+
+    // ivBits is left-padded (or cut) to blockSizeBits like the CBC IV
+    public CtrMode(UnaryOperator<String> blockEncrypt, int blockSizeBits, String ivBits) {
+        this(blockEncrypt, false, blockSizeBits, ivBits);
+    }
+
+    private CtrMode(UnaryOperator<String> blockEncrypt, boolean batched, int blockSizeBits, String ivBits) {
+        if (blockSizeBits <= 0) throw new IllegalArgumentException("blockSizeBits must be positive");
+        this.blockEncrypt = blockEncrypt;
+        this.batched = batched;
+        this.blockSizeBits = blockSizeBits;
+        String iv = EncryptionMode.leftPadTo(ivBits, blockSizeBits);
+        this.initialCounter = new BigInteger("0" + iv, 2);
+        this.modulus = BigInteger.ONE.shiftLeft(blockSizeBits);
+    }
+
+    // ecbEncrypt takes a run of whole counter blocks at once, so batch engines see many blocks per call
+    public static CtrMode overEcb(UnaryOperator<String> ecbEncrypt, int blockSizeBits, String ivBits) {
+        return new CtrMode(ecbEncrypt, true, blockSizeBits, ivBits);
+    }
+
+    // --- Position ---
+    public void seek(long bitOffset) {
+        if (bitOffset < 0) throw new IllegalArgumentException("offset must be non-negative");
+        position = bitOffset;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public int blockSizeBits() {
+        return blockSizeBits;
+    }
+
+    // --- Encrypt / decrypt from the current position ---
+    public String process(String bits) {
+        String out = process(bits, position);
+        position += bits.length();
+        return out;
+    }
+
+    public String process(String bits, long bitOffset) {
+        if (bits.isEmpty()) return "";
+        String ks = keystream(bitOffset, bits.length());
+        return PackedBits.toBits(EncryptionMode.xorBits(PackedBits.fromBits(bits), PackedBits.fromBits(ks)), bits.length());
+    }
+
+    // --- Keystream ---
+    public String keystream(long bitOffset, int nBits) {
+        if (nBits == 0) return "";
+        long firstBlock = bitOffset / blockSizeBits;
+        int skip = (int) (bitOffset % blockSizeBits);
+        int nBlocks = (int) ((skip + (long) nBits + blockSizeBits - 1) / blockSizeBits);
+
+        String blocks = ParallelBlockEngine.runRanges(nBlocks * blockSizeBits, blockSizeBits, (start, end) -> {
+            StringBuilder ks = new StringBuilder(end - start);
+            for (int b = start / blockSizeBits; b * blockSizeBits < end; b++) {
+                if (batched) ks.append(counterBlock(firstBlock + b));
+                else ks.append(blockEncrypt.apply(counterBlock(firstBlock + b)), 0, blockSizeBits);
+            }
+            return batched ? blockEncrypt.apply(ks.toString()) : ks.toString();
+        });
+        return blocks.substring(skip, skip + nBits);
+    }
+
+    String counterBlock(long index) {
+        BigInteger counter = initialCounter.add(BigInteger.valueOf(index)).mod(modulus);
+        return EncryptionMode.leftPadTo(counter.toString(2), blockSizeBits);
+    }
+}
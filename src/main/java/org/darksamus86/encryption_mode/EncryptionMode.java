@@ -3,6 +3,7 @@ package org.darksamus86.encryption_mode;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,31 +47,13 @@ public class EncryptionMode {
     }
 
     // --- Conversions ---
+    // linear-time, see BitCodec (upper-case, left-padded to whole nibbles)
     public static String bitsToHex(String bits) {
-        if (bits.length() == 0) return "";
-        BigInteger bi = new BigInteger(bits, 2);
-        int hexLen = (bits.length() + 3) / 4;
-        String hex = bi.toString(16).toUpperCase();
-        // pad
-        if (hex.length() < hexLen) {
-            StringBuilder z = new StringBuilder();
-            for (int i = 0; i < hexLen - hex.length(); i++) z.append('0');
-            hex = z + hex;
-        }
-        return hex;
+        return BitCodec.bitsToHex(bits, true);
     }
 
     public static String hexToBits(String hexStr) {
-        if (hexStr.length() == 0) return "";
-        BigInteger bi = new BigInteger(hexStr, 16);
-        int bitsLen = hexStr.length() * 4;
-        String bits = bi.toString(2);
-        if (bits.length() < bitsLen) {
-            StringBuilder z = new StringBuilder();
-            for (int i = 0; i < bitsLen - bits.length(); i++) z.append('0');
-            bits = z + bits;
-        }
-        return bits;
+        return BitCodec.hexToBits(hexStr);
     }
 
     public static String bitsToText(String bits) {
@@ -109,28 +92,18 @@ public class EncryptionMode {
     }
 
     // --- S-box substitution for 4-bit nibbles ---
+    // a trailing partial nibble is right-padded with zeros, so the result length is rounded up to 4
     public static String sboxSubstitution4bit(String bits, boolean inverse) {
-        StringBuilder out = new StringBuilder();
-        Map<Integer,Integer> table = inverse ? INV_SBOX_HEX : SBOX_HEX;
-        for (int i = 0; i < bits.length(); i += 4) {
-            String nibble;
-            if (i + 4 <= bits.length()) nibble = bits.substring(i, i + 4);
-            else {
-                nibble = bits.substring(i);
-                // right-pad with zeros
-                while (nibble.length() < 4) nibble += '0';
-            }
-            int val = Integer.parseInt(nibble, 2);
-            int sub = table.getOrDefault(val, 0);
-            String s = Integer.toBinaryString(sub);
-            if (s.length() < 4) {
-                StringBuilder z = new StringBuilder();
-                for (int k = 0; k < 4 - s.length(); k++) z.append('0');
-                s = z + s;
-            }
-            out.append(s);
-        }
-        return out.toString();
+        int outBits = (bits.length() + 3) / 4 * 4;
+        return PackedBits.toBits(sboxSubstitution4bit(PackedBits.fromBits(bits), bits.length(), inverse), outBits);
+    }
+
+    public static long[] sboxSubstitution4bit(long[] words, int nBits, boolean inverse) {
+        int nNibbles = (nBits + 3) / 4;
+        long[] out = Arrays.copyOf(words, PackedBits.wordsFor(nNibbles * 4));
+        PackedBits.clearTail(out, nBits);
+        BlockBackend.current().substitute(out, nNibbles, inverse);
+        return out;
     }
 
     // --- P-box helpers ---
@@ -146,54 +119,29 @@ public class EncryptionMode {
      * inverse: if true, apply inverse permutation
      */
     public static String pboxPermutation(String bits, boolean inverse, Map<Integer,Integer> pboxMap, int chunkSize) {
-        Map<Integer,Integer> table;
-        if (pboxMap == null) {
-            if (chunkSize == 16) {
-                table = new LinkedHashMap<>(DEFAULT_PBOX_MAP_16);
-            } else {
-                table = makeIdentityPboxMap(chunkSize);
-            }
-        } else {
-            if (inverse) {
-                // invert map
-                table = new LinkedHashMap<>();
-                for (Map.Entry<Integer,Integer> e : pboxMap.entrySet()) table.put(e.getValue(), e.getKey());
-            } else {
-                table = new LinkedHashMap<>(pboxMap);
-            }
-        }
+        if (bits.isEmpty()) return "";
+        int nChunks = (bits.length() + chunkSize - 1) / chunkSize;
+        long[] permuted = pboxPermutation(PackedBits.fromBits(bits), bits.length(), inverse, pboxMap, chunkSize);
+        return PackedBits.toBits(permuted, nChunks * chunkSize);
+    }
 
-        StringBuilder out = new StringBuilder();
-        for (int i = 0; i < bits.length(); i += chunkSize) {
-            String block;
-            if (i + chunkSize <= bits.length()) block = bits.substring(i, i + chunkSize);
-            else {
-                block = bits.substring(i);
-                while (block.length() < chunkSize) block += '0';
-            }
-            char[] permuted = new char[chunkSize];
-            for (int p = 0; p < chunkSize; p++) permuted[p] = '0';
-            for (Map.Entry<Integer,Integer> e : table.entrySet()) {
-                int src = e.getKey();
-                int dest = e.getValue();
-                if (src >= 1 && src <= block.length() && dest >= 1 && dest <= chunkSize) {
-                    permuted[dest - 1] = block.charAt(src - 1);
-                }
-            }
-            out.append(new String(permuted));
-        }
-        return out.toString();
+    // packed variant: the last chunk is zero-padded, result holds ceil(nBits / chunkSize) full chunks
+    public static long[] pboxPermutation(long[] words, int nBits, boolean inverse, Map<Integer,Integer> pboxMap, int chunkSize) {
+        if (nBits == 0) return new long[0];
+        return BitPermutation.compile(pboxMap, chunkSize).apply(words, nBits, inverse);
     }
 
     // --- XOR ---
     public static String xorBits(String bits1, String bits2) {
         int len = Math.min(bits1.length(), bits2.length());
-        StringBuilder sb = new StringBuilder(len);
-        for (int i = 0; i < len; i++) {
-            char a = bits1.charAt(i), b = bits2.charAt(i);
-            sb.append(a == b ? '0' : '1');
-        }
-        return sb.toString();
+        return PackedBits.toBits(xorBits(PackedBits.fromBits(bits1), PackedBits.fromBits(bits2)), len);
+    }
+
+    public static long[] xorBits(long[] words1, long[] words2) {
+        int len = Math.min(words1.length, words2.length);
+        long[] out = new long[len];
+        BlockBackend.current().xor(words1, words2, out, len);
+        return out;
     }
 
     // --- Split into blocks ---
@@ -206,20 +154,38 @@ public class EncryptionMode {
         return out;
     }
 
+    public static List<long[]> splitIntoBlocks(long[] words, int nBits, int blockSize) {
+        List<long[]> out = new ArrayList<>();
+        for (int i = 0; i < nBits; i += blockSize) {
+            out.add(PackedBits.slice(words, i, Math.min(blockSize, nBits - i)));
+        }
+        return out;
+    }
+
     // --- PKCS7 pad/unpad (operates on bits, block_size_bits must be multiple of 8) ---
     public static String pkcs7Pad(String bits, int blockSizeBits) {
-        if (blockSizeBits % 8 != 0) throw new IllegalArgumentException("block_size_bits must be multiple of 8");
-        int byteLen = bits.length() / 8;
-        int blockSizeBytes = blockSizeBits / 8;
-        int paddingLen = blockSizeBytes - (byteLen % blockSizeBytes);
-        if (paddingLen == 0) paddingLen = blockSizeBytes;
+        int paddingLen = pkcs7PaddingLength(bits.length() / 8, blockSizeBits);
         String paddingByte = Integer.toBinaryString(paddingLen);
         while (paddingByte.length() < 8) paddingByte = "0" + paddingByte;
-        StringBuilder padded = new StringBuilder(bits);
+        StringBuilder padded = new StringBuilder(bits.length() + paddingLen * paddingByte.length());
+        padded.append(bits);
         for (int i = 0; i < paddingLen; i++) padded.append(paddingByte);
         return padded.toString();
     }
 
+    public static byte[] pkcs7Pad(byte[] data, int blockSizeBits) {
+        int paddingLen = pkcs7PaddingLength(data.length, blockSizeBits);
+        byte[] padded = Arrays.copyOf(data, data.length + paddingLen);
+        Arrays.fill(padded, data.length, padded.length, (byte) paddingLen);
+        return padded;
+    }
+
+    private static int pkcs7PaddingLength(int byteLen, int blockSizeBits) {
+        if (blockSizeBits % 8 != 0) throw new IllegalArgumentException("block_size_bits must be multiple of 8");
+        int blockSizeBytes = blockSizeBits / 8;
+        return blockSizeBytes - (byteLen % blockSizeBytes);
+    }
+
     public static String pkcs7Unpad(String bits) {
         if (bits.length() % 8 != 0) return bits;
         String lastByte = bits.substring(bits.length() - 8);
@@ -228,6 +194,13 @@ public class EncryptionMode {
         return bits.substring(0, bits.length() - (padVal * 8));
     }
 
+    public static byte[] pkcs7Unpad(byte[] data) {
+        if (data.length == 0) return data;
+        int padVal = data[data.length - 1] & 0xFF;
+        if (padVal <= 0 || padVal > data.length) return data;
+        return Arrays.copyOf(data, data.length - padVal);
+    }
+
     // --- Round key generator (LCG) ---
     public static List<String> generateRoundKeys(String keyBits, int numRounds, int roundKeySize) {
         if (keyBits.length() < 2) throw new IllegalArgumentException("key_bits too short");
@@ -264,10 +237,14 @@ public class EncryptionMode {
 
     // --- Function F (uses xor, sbox, pbox) ---
     public static String fFunction(String rightHalf, String roundKey) {
-        String mixed = xorBits(rightHalf, roundKey);
-        String substituted = sboxSubstitution4bit(mixed, false);
-        String permuted = pboxPermutation(substituted, false, null, substituted.length());
-        return permuted;
+        int len = Math.min(rightHalf.length(), roundKey.length());
+        long[] mixed = xorBits(PackedBits.fromBits(rightHalf), PackedBits.fromBits(roundKey));
+        PackedBits.clearTail(mixed, len);
+        long[] substituted = sboxSubstitution4bit(mixed, len, false);
+        len = (len + 3) / 4 * 4;
+        if (len == 0) return "";
+        long[] permuted = pboxPermutation(substituted, len, false, null, len);
+        return PackedBits.toBits(permuted, len);
     }
 
     // --- Feistel round and inverse ---
@@ -286,7 +263,11 @@ public class EncryptionMode {
     }
 
     // --- Feistel encrypt/decrypt blocks (512-bit block, halves 256/256) ---
+    // Full blocks with keys of at least 256 bits go through a FeistelEngine compiled once per round-key
+    // list (FeistelEngine.cached); the String rounds below remain for short blocks and short keys.
     public static String feistelEncryptBlock(String blockBits, List<String> roundKeys) {
+        FeistelEngine engine = blockBits.length() == FeistelEngine.BLOCK_BITS ? FeistelEngine.cached(roundKeys) : null;
+        if (engine != null) return engine.encryptBlock(blockBits);
         String L = blockBits.substring(0, Math.min(256, blockBits.length()));
         String R = blockBits.length() >= 256 ? blockBits.substring(256, Math.min(512, blockBits.length())) : "";
         for (String k : roundKeys) {
@@ -298,6 +279,8 @@ public class EncryptionMode {
     }
 
     public static String feistelDecryptBlock(String blockBits, List<String> roundKeys) {
+        FeistelEngine engine = blockBits.length() == FeistelEngine.BLOCK_BITS ? FeistelEngine.cached(roundKeys) : null;
+        if (engine != null) return engine.decryptBlock(blockBits);
         String L = blockBits.substring(0, Math.min(256, blockBits.length()));
         String R = blockBits.length() >= 256 ? blockBits.substring(256, Math.min(512, blockBits.length())) : "";
         for (int i = roundKeys.size() - 1; i >= 0; i--) {
@@ -308,77 +291,171 @@ public class EncryptionMode {
         return L + R;
     }
 
+    // --- Feistel on byte[]: one 64-byte block, round keys of at least 256 bits, nothing allocated ---
+    // Runs the FeistelEngine compiled once per KeySchedule. in and out may be the same array region.
+    public static void feistelEncryptBlock(byte[] in, int inOff, byte[] out, int outOff, KeySchedule keys) {
+        keys.feistel().encryptBlock(in, inOff, out, outOff);
+    }
+
+    public static void feistelDecryptBlock(byte[] in, int inOff, byte[] out, int outOff, KeySchedule keys) {
+        keys.feistel().decryptBlock(in, inOff, out, outOff);
+    }
+
     // --- SPN encrypt/decrypt for a block (processes in round_key_size-chunks) ---
+    // chunks never interact, so each one runs through all rounds in packed form before the next
     public static String spnEncryptBlock(String plaintextBits, List<String> roundKeys, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        return spnEncryptBlock(plaintextBits, roundKeys, roundKeySize, BitPermutation.compile(pboxMap, roundKeySize));
+    }
+
+    public static String spnEncryptBlock(String plaintextBits, List<String> roundKeys, int roundKeySize, BitPermutation pbox) {
         int chunk = roundKeySize;
-        List<String> blocks = splitIntoBlocks(plaintextBits, chunk);
-        for (String roundKey : roundKeys) {
-            List<String> newBlocks = new ArrayList<>();
-            for (String block : blocks) {
-                if (block.length() < chunk) {
-                    while (block.length() < chunk) block += '0';
+        List<long[]> keys = packAll(roundKeys);
+        StringBuilder sb = new StringBuilder();
+        for (String block : splitIntoBlocks(plaintextBits, chunk)) {
+            long[] w = PackedBits.fromBits(block);
+            int len = block.length();
+            for (int r = 0; r < keys.size(); r++) {
+                if (len < chunk) {
+                    w = Arrays.copyOf(w, PackedBits.wordsFor(chunk));
+                    len = chunk;
                 }
-                String xorOut = xorBits(block, roundKey.substring(0, Math.min(roundKey.length(), block.length())));
-                String sboxOut = sboxSubstitution4bit(xorOut, false);
-                String pboxOut = pboxPermutation(sboxOut, false, pboxMap, block.length());
-                newBlocks.add(pboxOut);
+                int pboxChunk = len;
+                len = Math.min(len, roundKeys.get(r).length());
+                w = xorBits(w, keys.get(r));
+                PackedBits.clearTail(w, len);
+                w = sboxSubstitution4bit(w, len, false);
+                len = (len + 3) / 4 * 4;
+                w = pbox.forChunkSize(pboxChunk).apply(w, len, false);
+                len = (len + pboxChunk - 1) / pboxChunk * pboxChunk;
             }
-            blocks = newBlocks;
+            sb.append(PackedBits.toBits(w, len));
         }
-        StringBuilder sb = new StringBuilder();
-        for (String b : blocks) sb.append(b);
         return sb.toString();
     }
 
     public static String spnDecryptBlock(String cipherBits, List<String> roundKeys, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        return spnDecryptBlock(cipherBits, roundKeys, roundKeySize, BitPermutation.compile(pboxMap, roundKeySize));
+    }
+
+    public static String spnDecryptBlock(String cipherBits, List<String> roundKeys, int roundKeySize, BitPermutation pbox) {
         int chunk = roundKeySize;
-        List<String> blocks = splitIntoBlocks(cipherBits, chunk);
-        for (int r = roundKeys.size() - 1; r >= 0; r--) {
-            String roundKey = roundKeys.get(r);
-            List<String> newBlocks = new ArrayList<>();
-            for (String block : blocks) {
-                if (block.length() < chunk) {
-                    while (block.length() < chunk) block += '0';
+        List<long[]> keys = packAll(roundKeys);
+        StringBuilder sb = new StringBuilder();
+        for (String block : splitIntoBlocks(cipherBits, chunk)) {
+            long[] w = PackedBits.fromBits(block);
+            int len = block.length();
+            for (int r = keys.size() - 1; r >= 0; r--) {
+                if (len < chunk) {
+                    w = Arrays.copyOf(w, PackedBits.wordsFor(chunk));
+                    len = chunk;
                 }
-                String pboxInv = pboxPermutation(block, true, pboxMap, block.length());
-                String sboxInv = sboxSubstitution4bit(pboxInv, true);
-                String xorOut = xorBits(sboxInv, roundKey.substring(0, Math.min(roundKey.length(), sboxInv.length())));
-                newBlocks.add(xorOut);
+                w = pbox.forChunkSize(len).apply(w, len, true);
+                w = sboxSubstitution4bit(w, len, true);
+                len = Math.min((len + 3) / 4 * 4, roundKeys.get(r).length());
+                w = xorBits(w, keys.get(r));
+                PackedBits.clearTail(w, len);
             }
-            blocks = newBlocks;
+            sb.append(PackedBits.toBits(w, len));
         }
-        StringBuilder sb = new StringBuilder();
-        for (String b : blocks) sb.append(b);
         return sb.toString();
     }
 
+    static List<long[]> packAll(List<String> bitStrings) {
+        List<long[]> packed = new ArrayList<>(bitStrings.size());
+        for (String b : bitStrings) packed.add(PackedBits.fromBits(b));
+        return packed;
+    }
+
+    // --- Block shapes ModeEngine can run on bytes ---
+    // A block keeps its length when it is whole bytes, splits into whole chunks, every chunk stays 4-bit
+    // aligned and no round key is shorter than a chunk; such blocks go through ModeEngine. Any other shape
+    // (a key or chunk that truncates the block) stays on the String block loops below.
+    private static BlockCipher spnBlockCipher(List<String> roundKeys, int blockSizeBits, int roundKeySize, BitPermutation pbox) {
+        if (blockSizeBits <= 0 || blockSizeBits % 8 != 0 || roundKeySize <= 0 || roundKeySize % 4 != 0
+                || blockSizeBits % roundKeySize != 0) {
+            return null;
+        }
+        for (String k : roundKeys) {
+            if (k.length() < roundKeySize) return null;
+        }
+        return new SpnChunkCipher(roundKeys, blockSizeBits / 8, roundKeySize, pbox);
+    }
+
+    // chunks never interact, so a run of blocks is one spnEncryptBlock / spnDecryptBlock call
+    private record SpnChunkCipher(List<String> roundKeys, int blockSize, int roundKeySize, BitPermutation pbox)
+            implements BlockCipher {
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            encryptBlocks(in, inOff, out, outOff, blockSize);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            decryptBlocks(in, inOff, out, outOff, blockSize);
+        }
+
+        @Override
+        public void encryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+            String bits = PackedBits.toBits(PackedBits.fromBytes(in, inOff, len), len * 8);
+            store(spnEncryptBlock(bits, roundKeys, roundKeySize, pbox), out, outOff, len);
+        }
+
+        @Override
+        public void decryptBlocks(byte[] in, int inOff, byte[] out, int outOff, int len) {
+            String bits = PackedBits.toBits(PackedBits.fromBytes(in, inOff, len), len * 8);
+            store(spnDecryptBlock(bits, roundKeys, roundKeySize, pbox), out, outOff, len);
+        }
+
+        private static void store(String bits, byte[] out, int outOff, int len) {
+            System.arraycopy(PackedBits.toBytes(PackedBits.fromBits(bits), len), 0, out, outOff, len);
+        }
+    }
+
     // --- ECB ---
+    // blocks are independent, so large inputs are spread over cores by ModeEngine / ParallelBlockEngine
     public static String ecbEncrypt(String plaintextBits, List<String> roundKeys, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
-        List<String> blocks = splitIntoBlocks(plaintextBits, blockSizeBits);
-        StringBuilder ciphertext = new StringBuilder();
-        for (String block : blocks) {
-            if (block.length() < blockSizeBits) {
-                while (block.length() < blockSizeBits) block += '0';
+        BitPermutation pbox = BitPermutation.compile(pboxMap, roundKeySize);
+        BlockCipher cipher = spnBlockCipher(roundKeys, blockSizeBits, roundKeySize, pbox);
+        if (cipher != null) return ModeEngine.ecbEncrypt(plaintextBits, cipher);
+        return ParallelBlockEngine.ecb(plaintextBits, blockSizeBits, range -> {
+            List<String> blocks = splitIntoBlocks(range, blockSizeBits);
+            StringBuilder ciphertext = new StringBuilder();
+            for (String block : blocks) {
+                if (block.length() < blockSizeBits) {
+                    while (block.length() < blockSizeBits) block += '0';
+                }
+                ciphertext.append(spnEncryptBlock(block, roundKeys, roundKeySize, pbox));
             }
-            ciphertext.append(spnEncryptBlock(block, roundKeys, roundKeySize, pboxMap));
-        }
-        return ciphertext.toString();
+            return ciphertext.toString();
+        });
     }
 
     public static String ecbDecrypt(String cipherBits, List<String> roundKeys, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        BitPermutation pbox = BitPermutation.compile(pboxMap, roundKeySize);
+        BlockCipher cipher = spnBlockCipher(roundKeys, blockSizeBits, roundKeySize, pbox);
+        if (cipher != null) return ModeEngine.ecbDecrypt(cipherBits, cipher);
+        return ParallelBlockEngine.ecb(cipherBits, blockSizeBits,
+                range -> ecbDecryptRange(range, roundKeys, blockSizeBits, roundKeySize, pbox));
+    }
+
+    private static String ecbDecryptRange(String cipherBits, List<String> roundKeys, int blockSizeBits, int roundKeySize, BitPermutation pbox) {
         List<String> blocks = splitIntoBlocks(cipherBits, blockSizeBits);
         StringBuilder plaintext = new StringBuilder();
         for (String block : blocks) {
             if (block.length() < blockSizeBits) {
                 while (block.length() < blockSizeBits) block += '0';
             }
-            plaintext.append(spnDecryptBlock(block, roundKeys, roundKeySize, pboxMap));
+            plaintext.append(spnDecryptBlock(block, roundKeys, roundKeySize, pbox));
         }
         return plaintext.toString();
     }
 
     // --- CBC ---
     public static String cbcEncrypt(String plaintextBits, List<String> roundKeys, String iv, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        BitPermutation pbox = BitPermutation.compile(pboxMap, roundKeySize);
+        BlockCipher cipher = spnBlockCipher(roundKeys, blockSizeBits, roundKeySize, pbox);
+        if (cipher != null) return ModeEngine.cbcEncrypt(plaintextBits, cipher, iv);
         List<String> blocks = splitIntoBlocks(plaintextBits, blockSizeBits);
         String prev = leftPadTo(iv, blockSizeBits);
         StringBuilder ciphertext = new StringBuilder();
@@ -387,27 +464,34 @@ public class EncryptionMode {
                 while (block.length() < blockSizeBits) block += '0';
             }
             String xored = xorBits(block, prev);
-            String encrypted = spnEncryptBlock(xored, roundKeys, roundKeySize, pboxMap);
+            String encrypted = spnEncryptBlock(xored, roundKeys, roundKeySize, pbox);
             ciphertext.append(encrypted);
             prev = encrypted;
         }
         return ciphertext.toString();
     }
 
+    // blocks decrypt independently, only the final XOR needs the previous ciphertext block
     public static String cbcDecrypt(String cipherBits, List<String> roundKeys, String iv, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
-        List<String> blocks = splitIntoBlocks(cipherBits, blockSizeBits);
-        String prev = leftPadTo(iv, blockSizeBits);
-        StringBuilder plaintext = new StringBuilder();
-        for (String block : blocks) {
-            if (block.length() < blockSizeBits) {
-                while (block.length() < blockSizeBits) block += '0';
-            }
-            String decrypted = spnDecryptBlock(block, roundKeys, roundKeySize, pboxMap);
-            String xored = xorBits(decrypted, prev);
-            plaintext.append(xored);
-            prev = block;
-        }
-        return plaintext.toString();
+        BitPermutation pbox = BitPermutation.compile(pboxMap, roundKeySize);
+        BlockCipher cipher = spnBlockCipher(roundKeys, blockSizeBits, roundKeySize, pbox);
+        if (cipher != null) return ModeEngine.cbcDecrypt(cipherBits, cipher, iv);
+        return ParallelBlockEngine.cbcDecrypt(cipherBits, leftPadTo(iv, blockSizeBits), blockSizeBits,
+                range -> ecbDecryptRange(range, roundKeys, blockSizeBits, roundKeySize, pbox));
+    }
+
+    // --- CTR (keystream = E(iv + i), no padding; decryption is the same operation) ---
+    public static String ctrEncrypt(String plaintextBits, List<String> roundKeys, String iv, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        return ctrMode(roundKeys, iv, blockSizeBits, roundKeySize, pboxMap).process(plaintextBits);
+    }
+
+    public static String ctrDecrypt(String cipherBits, List<String> roundKeys, String iv, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        return ctrEncrypt(cipherBits, roundKeys, iv, blockSizeBits, roundKeySize, pboxMap);
+    }
+
+    public static CtrMode ctrMode(List<String> roundKeys, String iv, int blockSizeBits, int roundKeySize, Map<Integer,Integer> pboxMap) {
+        BitPermutation pbox = BitPermutation.compile(pboxMap, roundKeySize);
+        return new CtrMode(block -> spnEncryptBlock(block, roundKeys, roundKeySize, pbox), blockSizeBits, iv);
     }
 
     // helper: pad or zfill to desired bit length on the left
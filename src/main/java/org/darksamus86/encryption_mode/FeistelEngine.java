@@ -0,0 +1,191 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feistel network of feistelEncryptBlock / feistelDecryptBlock compiled for one key schedule.
+ * A block is 8 longs: halves L = words 0..3, R = words 4..7 (256 bits each, MSB-first).
+ * fFunction's 256-bit P-box is the identity and is skipped, so F(R, k) = S(R ^ k) word by word.
+ * Round keys are unpacked once into one flat array (4 words per round); the XOR stays a single
+ * long op in front of SBoxEngine's 256-entry byte table. A per-key fused S(x ^ k) table was measured
+ * slower: 64 KB of lookups per block spills out of L1, while the XOR it saves is free.
+ * Rounds run on locals and allocate nothing. Instances are immutable and thread-safe.
+ */
+public final class FeistelEngine implements BlockCipher {
+
+    public static final int BLOCK_BITS = 512;
+    static final int HALF_BITS = 256;
+
+    private static final int HALF_WORDS = HALF_BITS / 64;
+
+    // engines for the String block API by round-key list instance; cleared when full
+    private static final int CACHED_CAPACITY = 64;
+    private static final Map<CachedKey, Cached> CACHED = new ConcurrentHashMap<>();
+
+    private final int rounds;
+    private final long[] keyWords; // round * 4 + i -> word i of that round's key
+
+    private FeistelEngine(int rounds, long[] keyWords) {
+        this.rounds = rounds;
+        this.keyWords = keyWords;
+    }
+
+    // --- Compilation ---
+    // the engine reproduces the String path only for 512-bit blocks, keys of at least 256 bits
+    // (longer keys contribute their leading bits) and an identity 256-bit P-box
+    public static boolean supports(List<String> roundKeys) {
+        for (String k : roundKeys) {
+            if (k.length() < HALF_BITS) return false;
+        }
+        return BitPermutation.standard(HALF_BITS).isIdentity(false);
+    }
+
+    public static FeistelEngine compile(List<String> roundKeys) {
+        if (!supports(roundKeys)) throw new IllegalArgumentException("round keys must be at least 256 bits");
+        return compile(KeySchedule.of(roundKeys));
+    }
+
+    // compile(roundKeys) for the String block calls, once per list: RoundKeyCache hands out the same list
+    // for the same key, so feistelEncryptBlock over many blocks compiles once. null when !supports(roundKeys).
+    // A hit is re-checked against the list's contents (the strings are usually the same instances).
+    static FeistelEngine cached(List<String> roundKeys) {
+        CachedKey key = new CachedKey(roundKeys);
+        Cached hit = CACHED.get(key);
+        if (hit != null && hit.roundKeys.equals(roundKeys)) return hit.engine;
+        List<String> copy = List.copyOf(roundKeys);
+        Cached c = new Cached(copy, supports(copy) ? compile(KeySchedule.of(copy)) : null);
+        if (CACHED.size() >= CACHED_CAPACITY) CACHED.clear();
+        CACHED.put(key, c);
+        return c.engine;
+    }
+
+    private record Cached(List<String> roundKeys, FeistelEngine engine) {
+    }
+
+    private record CachedKey(List<String> roundKeys) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CachedKey k && k.roundKeys == roundKeys;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(roundKeys);
+        }
+    }
+
+    public static FeistelEngine compile(KeySchedule keys) {
+        keys.requireKeyBits(keys.rounds(), HALF_BITS);
+        long[] words = new long[keys.rounds() * HALF_WORDS];
+        for (int r = 0; r < keys.rounds(); r++) {
+            for (int i = 0; i < HALF_WORDS; i++) words[r * HALF_WORDS + i] = keys.word(r, i);
+        }
+        return new FeistelEngine(keys.rounds(), words);
+    }
+
+    public int rounds() {
+        return rounds;
+    }
+
+    @Override
+    public int blockSize() {
+        return BLOCK_BITS / 8;
+    }
+
+    // --- Bit-string blocks: exactly BLOCK_BITS chars ---
+    public String encryptBlock(String blockBits) {
+        long[] words = packBlock(blockBits);
+        encryptBlock(words, 0, words, 0);
+        return PackedBits.toBits(words, BLOCK_BITS);
+    }
+
+    public String decryptBlock(String blockBits) {
+        long[] words = packBlock(blockBits);
+        decryptBlock(words, 0, words, 0);
+        return PackedBits.toBits(words, BLOCK_BITS);
+    }
+
+    private static long[] packBlock(String blockBits) {
+        if (blockBits.length() != BLOCK_BITS) {
+            throw new IllegalArgumentException("block must be " + BLOCK_BITS + " bits, got " + blockBits.length());
+        }
+        return PackedBits.fromBits(blockBits);
+    }
+
+    // --- Packed blocks: 8 words from in[inOff], in and out may be the same region ---
+    public void encryptBlock(long[] in, int inOff, long[] out, int outOff) {
+        long l0 = in[inOff], l1 = in[inOff + 1], l2 = in[inOff + 2], l3 = in[inOff + 3];
+        long r0 = in[inOff + 4], r1 = in[inOff + 5], r2 = in[inOff + 6], r3 = in[inOff + 7];
+        for (int r = 0; r < rounds; r++) {
+            int base = r * HALF_WORDS;
+            long t0 = l0 ^ f(r0, base), t1 = l1 ^ f(r1, base + 1), t2 = l2 ^ f(r2, base + 2), t3 = l3 ^ f(r3, base + 3);
+            l0 = r0; l1 = r1; l2 = r2; l3 = r3;
+            r0 = t0; r1 = t1; r2 = t2; r3 = t3;
+        }
+        out[outOff] = l0; out[outOff + 1] = l1; out[outOff + 2] = l2; out[outOff + 3] = l3;
+        out[outOff + 4] = r0; out[outOff + 5] = r1; out[outOff + 6] = r2; out[outOff + 7] = r3;
+    }
+
+    public void decryptBlock(long[] in, int inOff, long[] out, int outOff) {
+        long l0 = in[inOff], l1 = in[inOff + 1], l2 = in[inOff + 2], l3 = in[inOff + 3];
+        long r0 = in[inOff + 4], r1 = in[inOff + 5], r2 = in[inOff + 6], r3 = in[inOff + 7];
+        for (int r = rounds - 1; r >= 0; r--) {
+            int base = r * HALF_WORDS;
+            long t0 = r0 ^ f(l0, base), t1 = r1 ^ f(l1, base + 1), t2 = r2 ^ f(l2, base + 2), t3 = r3 ^ f(l3, base + 3);
+            r0 = l0; r1 = l1; r2 = l2; r3 = l3;
+            l0 = t0; l1 = t1; l2 = t2; l3 = t3;
+        }
+        out[outOff] = l0; out[outOff + 1] = l1; out[outOff + 2] = l2; out[outOff + 3] = l3;
+        out[outOff + 4] = r0; out[outOff + 5] = r1; out[outOff + 6] = r2; out[outOff + 7] = r3;
+    }
+
+    // --- byte[] blocks: 64 bytes, big-endian words ---
+    @Override
+    public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        long l0 = PackedBits.readLong(in, inOff), l1 = PackedBits.readLong(in, inOff + 8);
+        long l2 = PackedBits.readLong(in, inOff + 16), l3 = PackedBits.readLong(in, inOff + 24);
+        long r0 = PackedBits.readLong(in, inOff + 32), r1 = PackedBits.readLong(in, inOff + 40);
+        long r2 = PackedBits.readLong(in, inOff + 48), r3 = PackedBits.readLong(in, inOff + 56);
+        for (int r = 0; r < rounds; r++) {
+            int base = r * HALF_WORDS;
+            long t0 = l0 ^ f(r0, base), t1 = l1 ^ f(r1, base + 1), t2 = l2 ^ f(r2, base + 2), t3 = l3 ^ f(r3, base + 3);
+            l0 = r0; l1 = r1; l2 = r2; l3 = r3;
+            r0 = t0; r1 = t1; r2 = t2; r3 = t3;
+        }
+        write(out, outOff, l0, l1, l2, l3, r0, r1, r2, r3);
+    }
+
+    @Override
+    public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        long l0 = PackedBits.readLong(in, inOff), l1 = PackedBits.readLong(in, inOff + 8);
+        long l2 = PackedBits.readLong(in, inOff + 16), l3 = PackedBits.readLong(in, inOff + 24);
+        long r0 = PackedBits.readLong(in, inOff + 32), r1 = PackedBits.readLong(in, inOff + 40);
+        long r2 = PackedBits.readLong(in, inOff + 48), r3 = PackedBits.readLong(in, inOff + 56);
+        for (int r = rounds - 1; r >= 0; r--) {
+            int base = r * HALF_WORDS;
+            long t0 = r0 ^ f(l0, base), t1 = r1 ^ f(l1, base + 1), t2 = r2 ^ f(l2, base + 2), t3 = r3 ^ f(l3, base + 3);
+            r0 = l0; r1 = l1; r2 = l2; r3 = l3;
+            l0 = t0; l1 = t1; l2 = t2; l3 = t3;
+        }
+        write(out, outOff, l0, l1, l2, l3, r0, r1, r2, r3);
+    }
+
+    private static void write(byte[] out, int off, long l0, long l1, long l2, long l3,
+                              long r0, long r1, long r2, long r3) {
+        PackedBits.writeLong(out, off, l0);
+        PackedBits.writeLong(out, off + 8, l1);
+        PackedBits.writeLong(out, off + 16, l2);
+        PackedBits.writeLong(out, off + 24, l3);
+        PackedBits.writeLong(out, off + 32, r0);
+        PackedBits.writeLong(out, off + 40, r1);
+        PackedBits.writeLong(out, off + 48, r2);
+        PackedBits.writeLong(out, off + 56, r3);
+    }
+
+    // --- F for one word: o = index of the round key word ---
+    private long f(long x, int o) {
+        return SBoxEngine.substitute(x ^ keyWords[o], false);
+    }
+}
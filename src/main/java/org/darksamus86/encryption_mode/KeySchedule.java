@@ -0,0 +1,65 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.List;
+
+/**
+ * Round keys packed once (MSB-first words, like PackedBits) for the byte[] block functions,
+ * which read key words straight from here and allocate nothing per call.
+ * Immutable and safe to share between threads.
+ */
+public final class KeySchedule {
+
+    private final long[][] words;
+    private final int[] bits;
+    private volatile FeistelEngine feistel; // compiled on first use by the byte[] Feistel functions
+
+    private KeySchedule(long[][] words, int[] bits) {
+        this.words = words;
+        this.bits = bits;
+    }
+
+    public static KeySchedule of(List<String> roundKeys) {
+        long[][] words = new long[roundKeys.size()][];
+        int[] bits = new int[roundKeys.size()];
+        for (int r = 0; r < words.length; r++) {
+            String k = roundKeys.get(r);
+            words[r] = PackedBits.fromBits(k);
+            bits[r] = k.length();
+        }
+        return new KeySchedule(words, bits);
+    }
+
+    public int rounds() {
+        return words.length;
+    }
+
+    public int keyBits(int round) {
+        return bits[round];
+    }
+
+    // word i of round key r; words past the key length read as zero
+    public long word(int round, int i) {
+        long[] w = words[round];
+        return i < w.length ? w[i] : 0L;
+    }
+
+    // the Feistel network for these keys, compiled on first use and then shared;
+    // racing threads may each compile, the engines are equal, so either one can win
+    public FeistelEngine feistel() {
+        FeistelEngine e = feistel;
+        if (e == null) feistel = e = FeistelEngine.compile(this);
+        return e;
+    }
+
+    // every one of the first nRounds keys is at least minBits long (longer keys use their leading bits)
+    public void requireKeyBits(int nRounds, int minBits) {
+        if (words.length < nRounds) {
+            throw new IllegalArgumentException("need " + nRounds + " round keys, got " + words.length);
+        }
+        for (int r = 0; r < nRounds; r++) {
+            if (bits[r] < minBits) {
+                throw new IllegalArgumentException("round key " + r + " has " + bits[r] + " bits, need at least " + minBits);
+            }
+        }
+    }
+}
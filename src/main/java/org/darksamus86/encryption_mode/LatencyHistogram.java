@@ -0,0 +1,83 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Log-linear latency histogram in nanoseconds: exact below 16 ns, then 8 sub-buckets per power of two
+ * (at most 12.5% relative error), up to 2^63 ns. Counts are striped by thread, so threads
+ * recording at the same time mostly touch different cache lines; percentiles sum the stripes.
+ * A stripe is allocated by the first record() that lands on it, so a histogram that never records
+ * (metrics disabled) costs one small array of references.
+ */
+final class LatencyHistogram {
+
+    static final int BUCKETS = 16 + (63 - 4) * 8;
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    void record(long nanos) {
+        int s = stripe();
+        AtomicLongArray counts = stripes.get(s);
+        if (counts == null) {
+            stripes.compareAndSet(s, null, new AtomicLongArray(BUCKETS));
+            counts = stripes.get(s);
+        }
+        counts.getAndIncrement(bucket(Math.max(0, nanos)));
+    }
+
+    // smallest bucket bound with at least q of all samples at or below it; 0 when empty
+    long percentile(double q) {
+        long[] merged = merged();
+        long total = 0;
+        for (long c : merged) total += c;
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += merged[b];
+            if (seen >= rank) return upperBound(b);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    // stripes stay allocated: a thread that recorded once is likely to record again
+    void reset() {
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray counts = stripes.get(s);
+            if (counts != null) for (int b = 0; b < BUCKETS; b++) counts.set(b, 0);
+        }
+    }
+
+    private long[] merged() {
+        long[] m = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray counts = stripes.get(s);
+            if (counts != null) for (int b = 0; b < BUCKETS; b++) m[b] += counts.get(b);
+        }
+        return m;
+    }
+
+    // --- Bucket layout ---
+    static int bucket(long v) {
+        if (v < 16) return (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (e - 3)) & 7;
+        return 16 + (e - 4) * 8 + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 16) return bucket;
+        int e = (bucket - 16) / 8 + 4;
+        int sub = (bucket - 16) % 8;
+        long next = (long) (8 + sub + 1) << (e - 3);
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,226 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Block cipher modes over byte[] for any BlockCipher: ECB, CBC, CTR, CFB and OFB.
+ * Every call works on in[inOff, inOff + len) -> out[outOff, outOff + len); in and out may be the same
+ * region (in-place) or disjoint. IVs are blockSize() bytes at iv[ivOff] and are never modified.
+ *
+ * ECB and CBC take whole blocks only (pad first, e.g. pkcs7Pad(byte[], bits)); CTR, CFB and OFB
+ * take any length and end with a partial block. Work that has no chain dependency (ECB both ways,
+ * CBC / CFB decryption, CTR) is cut into CHUNK_BYTES chunks that run on the common ForkJoinPool
+ * once len reaches ParallelBlockEngine's threshold, so the output never depends on scheduling.
+ * CBC / CFB encryption and OFB are inherently sequential.
+ */
+public final class ModeEngine {
+
+    // bytes handled by one task, rounded down to whole blocks
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    private ModeEngine() {
+    }
+
+    // --- ECB ---
+    public static void ecbEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len, BlockCipher cipher) {
+        requireWholeBlocks(len, cipher);
+        forEachChunk(len, cipher.blockSize(), (off, n) -> cipher.encryptBlocks(in, inOff + off, out, outOff + off, n));
+    }
+
+    public static void ecbDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len, BlockCipher cipher) {
+        requireWholeBlocks(len, cipher);
+        forEachChunk(len, cipher.blockSize(), (off, n) -> cipher.decryptBlocks(in, inOff + off, out, outOff + off, n));
+    }
+
+    // --- CBC: C_i = E(P_i ^ C_(i-1)), C_(-1) = IV ---
+    public static void cbcEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                                  BlockCipher cipher, byte[] iv, int ivOff) {
+        requireWholeBlocks(len, cipher);
+        int bs = cipher.blockSize();
+        for (int off = 0; off < len; off += bs) {
+            byte[] prev = off == 0 ? iv : out;
+            int prevOff = off == 0 ? ivOff : outOff + off - bs;
+            xor(in, inOff + off, prev, prevOff, out, outOff + off, bs);
+            cipher.encryptBlock(out, outOff + off, out, outOff + off);
+        }
+    }
+
+    // P_i = D(C_i) ^ C_(i-1). Each chunk runs backwards, so C_(i-1) is still intact when out == in;
+    // the block in front of every chunk is copied up front because the neighbouring chunk may overwrite it.
+    public static void cbcDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                                  BlockCipher cipher, byte[] iv, int ivOff) {
+        requireWholeBlocks(len, cipher);
+        int bs = cipher.blockSize();
+        byte[] heads = chunkHeads(in, inOff, len, bs, iv, ivOff);
+        forEachChunk(len, bs, (start, n) -> {
+            int headOff = start / chunkBytes(bs) * bs;
+            for (int off = start + n - bs; off >= start; off -= bs) {
+                cipher.decryptBlock(in, inOff + off, out, outOff + off);
+                if (off == start) xor(out, outOff + off, heads, headOff, out, outOff + off, bs);
+                else xor(out, outOff + off, in, inOff + off - bs, out, outOff + off, bs);
+            }
+        });
+    }
+
+    // --- CTR: keystream block i = E(IV + firstBlock + i mod 2^(8 * blockSize)), like CtrMode ---
+    public static void ctr(byte[] in, int inOff, byte[] out, int outOff, int len, BlockCipher cipher, byte[] iv, int ivOff) {
+        ctr(in, inOff, out, outOff, len, cipher, iv, ivOff, 0);
+    }
+
+    // firstBlock gives random access: the data starts at byte firstBlock * blockSize() of the stream
+    public static void ctr(byte[] in, int inOff, byte[] out, int outOff, int len,
+                           BlockCipher cipher, byte[] iv, int ivOff, long firstBlock) {
+        if (firstBlock < 0) throw new IllegalArgumentException("firstBlock must be non-negative");
+        int bs = cipher.blockSize();
+        forEachChunk(len, bs, (start, n) -> {
+            int nBlocks = (n + bs - 1) / bs;
+            byte[] ks = new byte[nBlocks * bs];
+            System.arraycopy(iv, ivOff, ks, 0, bs);
+            addCounter(ks, 0, bs, firstBlock + start / bs);
+            for (int b = 1; b < nBlocks; b++) {
+                System.arraycopy(ks, (b - 1) * bs, ks, b * bs, bs);
+                addCounter(ks, b * bs, bs, 1);
+            }
+            // all counters of the chunk go through the cipher as one batch
+            cipher.encryptBlocks(ks, 0, ks, 0, ks.length);
+            xor(in, inOff + start, ks, 0, out, outOff + start, n);
+        });
+    }
+
+    // --- CFB (full-block feedback): C_i = P_i ^ E(C_(i-1)), C_(-1) = IV ---
+    public static void cfbEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                                  BlockCipher cipher, byte[] iv, int ivOff) {
+        int bs = cipher.blockSize();
+        byte[] ks = new byte[bs];
+        for (int off = 0; off < len; off += bs) {
+            byte[] prev = off == 0 ? iv : out;
+            int prevOff = off == 0 ? ivOff : outOff + off - bs;
+            cipher.encryptBlock(prev, prevOff, ks, 0);
+            xor(in, inOff + off, ks, 0, out, outOff + off, Math.min(bs, len - off));
+        }
+    }
+
+    // P_i = C_i ^ E(C_(i-1)): no chain through the output, so chunks decrypt in parallel (backwards, as in CBC)
+    public static void cfbDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len,
+                                  BlockCipher cipher, byte[] iv, int ivOff) {
+        int bs = cipher.blockSize();
+        byte[] heads = chunkHeads(in, inOff, len, bs, iv, ivOff);
+        forEachChunk(len, bs, (start, n) -> {
+            int headOff = start / chunkBytes(bs) * bs;
+            byte[] ks = new byte[bs];
+            for (int off = start + (n - 1) / bs * bs; off >= start; off -= bs) {
+                if (off == start) cipher.encryptBlock(heads, headOff, ks, 0);
+                else cipher.encryptBlock(in, inOff + off - bs, ks, 0);
+                xor(in, inOff + off, ks, 0, out, outOff + off, Math.min(bs, len - off));
+            }
+        });
+    }
+
+    // --- OFB: O_i = E(O_(i-1)), O_(-1) = IV; encryption and decryption are the same ---
+    public static void ofb(byte[] in, int inOff, byte[] out, int outOff, int len, BlockCipher cipher, byte[] iv, int ivOff) {
+        int bs = cipher.blockSize();
+        byte[] ks = new byte[bs];
+        System.arraycopy(iv, ivOff, ks, 0, bs);
+        for (int off = 0; off < len; off += bs) {
+            cipher.encryptBlock(ks, 0, ks, 0);
+            xor(in, inOff + off, ks, 0, out, outOff + off, Math.min(bs, len - off));
+        }
+    }
+
+    // --- Bit strings: packed into whole blocks (the tail zero-filled) and run through the byte[] mode ---
+    // The result covers every block, as the String block loops always returned; iv is left-padded with zeros.
+    public static String ecbEncrypt(String bits, BlockCipher cipher) {
+        byte[] data = packBlocks(bits, cipher.blockSize());
+        ecbEncrypt(data, 0, data, 0, data.length, cipher);
+        return unpack(data);
+    }
+
+    public static String ecbDecrypt(String bits, BlockCipher cipher) {
+        byte[] data = packBlocks(bits, cipher.blockSize());
+        ecbDecrypt(data, 0, data, 0, data.length, cipher);
+        return unpack(data);
+    }
+
+    public static String cbcEncrypt(String bits, BlockCipher cipher, String iv) {
+        byte[] data = packBlocks(bits, cipher.blockSize());
+        cbcEncrypt(data, 0, data, 0, data.length, cipher, packIv(iv, cipher.blockSize()), 0);
+        return unpack(data);
+    }
+
+    public static String cbcDecrypt(String bits, BlockCipher cipher, String iv) {
+        byte[] data = packBlocks(bits, cipher.blockSize());
+        cbcDecrypt(data, 0, data, 0, data.length, cipher, packIv(iv, cipher.blockSize()), 0);
+        return unpack(data);
+    }
+
+    private static byte[] packBlocks(String bits, int bs) {
+        int blockBits = bs * 8;
+        int nBytes = (bits.length() + blockBits - 1) / blockBits * bs;
+        return PackedBits.toBytes(Arrays.copyOf(PackedBits.fromBits(bits), PackedBits.wordsFor(nBytes * 8)), nBytes);
+    }
+
+    private static byte[] packIv(String iv, int bs) {
+        return PackedBits.toBytes(PackedBits.fromBits(EncryptionMode.leftPadTo(iv, bs * 8)), bs);
+    }
+
+    private static String unpack(byte[] data) {
+        return PackedBits.toBits(PackedBits.fromBytes(data, 0, data.length), data.length * 8);
+    }
+
+    // --- Chunk scheduling ---
+    @FunctionalInterface
+    interface ChunkFunction {
+        void apply(int start, int len);
+    }
+
+    static int chunkBytes(int blockSize) {
+        return Math.max(1, CHUNK_BYTES / blockSize) * blockSize;
+    }
+
+    static void forEachChunk(int len, int blockSize, ChunkFunction fn) {
+        int chunk = chunkBytes(blockSize);
+        int nChunks = (len + chunk - 1) / chunk;
+        if (nChunks <= 1 || (long) len * 8 < ParallelBlockEngine.getThresholdBits()) {
+            for (int c = 0; c < nChunks; c++) fn.apply(c * chunk, Math.min(chunk, len - c * chunk));
+            return;
+        }
+        IntStream.range(0, nChunks).parallel().forEach(c -> fn.apply(c * chunk, Math.min(chunk, len - c * chunk)));
+    }
+
+    // block in front of each chunk (the IV for chunk 0), copied before any chunk writes
+    private static byte[] chunkHeads(byte[] in, int inOff, int len, int bs, byte[] iv, int ivOff) {
+        int chunk = chunkBytes(bs);
+        int nChunks = Math.max(1, (len + chunk - 1) / chunk);
+        byte[] heads = new byte[nChunks * bs];
+        System.arraycopy(iv, ivOff, heads, 0, bs);
+        for (int c = 1; c < nChunks; c++) System.arraycopy(in, inOff + c * chunk - bs, heads, c * bs, bs);
+        return heads;
+    }
+
+    // --- Helpers ---
+    private static void requireWholeBlocks(int len, BlockCipher cipher) {
+        if (len < 0 || len % cipher.blockSize() != 0) {
+            throw new IllegalArgumentException("length must be a multiple of " + cipher.blockSize() + " bytes: " + len);
+        }
+    }
+
+    // out = a ^ b over len bytes; out may alias a or b at the same offset
+    static void xor(byte[] a, int aOff, byte[] b, int bOff, byte[] out, int outOff, int len) {
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            PackedBits.writeLong(out, outOff + i, PackedBits.readLong(a, aOff + i) ^ PackedBits.readLong(b, bOff + i));
+        }
+        for (; i < len; i++) out[outOff + i] = (byte) (a[aOff + i] ^ b[bOff + i]);
+    }
+
+    // big-endian counter[off, off + n) += v, wrapping mod 2^(8n)
+    static void addCounter(byte[] counter, int off, int n, long v) {
+        long carry = v;
+        for (int i = off + n - 1; i >= off && carry != 0; i--) {
+            long sum = (counter[i] & 0xFFL) + (carry & 0xFF);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.darksamus86.encryption_mode;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Call counts, bytes in/out and latency histograms of the public cipher, hash and signature entry points.
+ * Call sites look their OperationStats up once and wrap the work in start() / record():
+ *
+ *   long t0 = OperationMetrics.start();
+ *   ... work ...
+ *   OperationMetrics.record(STATS, t0, bytesIn, bytesOut);
+ *
+ * Disabled (the default), start() is one volatile read and record() one compare, with no clock reads
+ * and no shared writes. Enabled with -Dencryptocat.metrics=true or setEnabled(true), which also
+ * registers the CipherMetricsMXBean under OBJECT_NAME. Failed calls are not recorded.
+ */
+public final class OperationMetrics {
+
+    public static final String OBJECT_NAME = "org.darksamus86:type=CipherMetrics";
+
+    private static final ConcurrentMap<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    private static final MXBean MX_BEAN = new MXBean();
+
+    private static volatile boolean enabled;
+    private static volatile boolean registered;
+
+    static {
+        if (Boolean.getBoolean("encryptocat.metrics")) setEnabled(true);
+    }
+
+    private OperationMetrics() {
+    }
+
+    // --- Switch ---
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        if (on) registerMBean();
+        enabled = on;
+    }
+
+    // --- Call sites ---
+    public static OperationStats operation(String algorithm, String operation) {
+        return OPERATIONS.computeIfAbsent(algorithm + "." + operation, k -> new OperationStats(algorithm, operation));
+    }
+
+    // 0 when disabled: record() then does nothing, even if metrics were switched on in between
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void record(OperationStats stats, long startNanos, long bytesIn, long bytesOut) {
+        if (startNanos == 0L) return;
+        stats.record(System.nanoTime() - startNanos, bytesIn, bytesOut);
+    }
+
+    // --- Reading ---
+    public static OperationSnapshot[] snapshot() {
+        return OPERATIONS.values().stream()
+                .map(OperationStats::snapshot)
+                .sorted(Comparator.comparing(OperationSnapshot::getAlgorithm).thenComparing(OperationSnapshot::getOperation))
+                .toArray(OperationSnapshot[]::new);
+    }
+
+    public static void reset() {
+        OPERATIONS.values().forEach(OperationStats::reset);
+    }
+
+    // --- JMX ---
+    public static synchronized void registerMBean() {
+        if (registered) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(MX_BEAN, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // another class loader's copy got there first; its view stays in place
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register " + OBJECT_NAME, e);
+        }
+        registered = true;
+    }
+
+    private static final class MXBean implements CipherMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return OperationMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            OperationMetrics.setEnabled(on);
+        }
+
+        @Override
+        public OperationSnapshot[] getOperations() {
+            return snapshot();
+        }
+
+        @Override
+        public void reset() {
+            OperationMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.darksamus86.encryption_mode;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Point-in-time view of one operation's counters. A plain getter class so the MXBean layer
+ * maps it to CompositeData (and back, through the annotated constructor).
+ */
+public final class OperationSnapshot {
+
+    private final String algorithm;
+    private final String operation;
+    private final long calls;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    @ConstructorParameters({"algorithm", "operation", "calls", "bytesIn", "bytesOut", "totalNanos",
+            "p50Nanos", "p99Nanos", "p999Nanos"})
+    public OperationSnapshot(String algorithm, String operation, long calls, long bytesIn, long bytesOut, long totalNanos,
+                             long p50Nanos, long p99Nanos, long p999Nanos) {
+        this.algorithm = algorithm;
+        this.operation = operation;
+        this.calls = calls;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.totalNanos = totalNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // percentiles are bucket upper bounds (at most 12.5% above the true value)
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + "." + operation + ": calls=" + calls + ", in=" + bytesIn + " B, out=" + bytesOut
+                + " B, p50=" + p50Nanos + " ns, p99=" + p99Nanos + " ns, p999=" + p999Nanos + " ns";
+    }
+}
@@ -0,0 +1,54 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one instrumented operation (an algorithm plus a mode or direction), obtained once
+ * from OperationMetrics.operation and kept in a static field at the call site. LongAdder counters and
+ * a striped LatencyHistogram keep concurrent callers off each other's cache lines.
+ */
+public final class OperationStats {
+
+    private final String algorithm;
+    private final String operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationStats(String algorithm, String operation) {
+        this.algorithm = algorithm;
+        this.operation = operation;
+    }
+
+    public String algorithm() {
+        return algorithm;
+    }
+
+    public String operation() {
+        return operation;
+    }
+
+    void record(long nanos, long in, long out) {
+        calls.increment();
+        bytesIn.add(in);
+        bytesOut.add(out);
+        totalNanos.add(nanos);
+        latency.record(nanos);
+    }
+
+    // sums are read one counter at a time, so a snapshot taken under load may be off by in-flight calls
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(algorithm, operation, calls.sum(), bytesIn.sum(), bytesOut.sum(), totalNanos.sum(),
+                latency.percentile(0.50), latency.percentile(0.99), latency.percentile(0.999));
+    }
+
+    void reset() {
+        calls.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        totalNanos.reset();
+        latency.reset();
+    }
+}
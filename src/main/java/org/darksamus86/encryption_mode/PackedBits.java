@@ -0,0 +1,108 @@
+package org.darksamus86.encryption_mode;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Packed representation of bit strings: 64 bits per long, MSB-first.
+ * Bit i of the string '0'/'1' lives in words[i / 64] at position 63 - (i % 64),
+ * so packed words compare and print in the same order as the String form.
+ * Bits past the logical length are always kept zero.
+ */
+public final class PackedBits {
+
+    private static final VarHandle BIG_ENDIAN_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private PackedBits() {
+    }
+
+    // --- Sizes ---
+    public static int wordsFor(int nBits) {
+        return (nBits + 63) >>> 6;
+    }
+
+    // --- Single-bit access ---
+    public static int getBit(long[] words, int i) {
+        return (int) (words[i >>> 6] >>> (63 - (i & 63))) & 1;
+    }
+
+    public static void setBit(long[] words, int i) {
+        words[i >>> 6] |= 1L << (63 - (i & 63));
+    }
+
+    // --- String <-> packed ---
+    public static long[] fromBits(String bits) {
+        int n = bits.length();
+        long[] words = new long[wordsFor(n)];
+        for (int w = 0, i = 0; i < n; w++) {
+            int end = Math.min(n, i + 64);
+            long acc = 0;
+            int start = i;
+            for (; i < end; i++) {
+                acc = (acc << 1) | (bits.charAt(i) == '1' ? 1 : 0);
+            }
+            words[w] = acc << (64 - (end - start));
+        }
+        return words;
+    }
+
+    public static String toBits(long[] words, int nBits) {
+        char[] out = new char[nBits];
+        for (int i = 0; i < nBits; i++) {
+            out[i] = (char) ('0' + getBit(words, i));
+        }
+        return new String(out);
+    }
+
+    // --- byte[] <-> packed (big-endian, byte 0 is the most significant) ---
+    public static long[] fromBytes(byte[] data, int off, int len) {
+        long[] words = new long[wordsFor(len * 8)];
+        for (int i = 0; i < len; i++) {
+            words[i >>> 3] |= (data[off + i] & 0xFFL) << (56 - ((i & 7) << 3));
+        }
+        return words;
+    }
+
+    public static byte[] toBytes(long[] words, int nBytes) {
+        byte[] out = new byte[nBytes];
+        for (int i = 0; i < nBytes; i++) {
+            out[i] = (byte) (words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+        }
+        return out;
+    }
+
+    // --- One word straight from / into a byte array (big-endian, no allocation) ---
+    public static long readLong(byte[] data, int off) {
+        return (long) BIG_ENDIAN_LONG.get(data, off);
+    }
+
+    public static void writeLong(byte[] data, int off, long value) {
+        BIG_ENDIAN_LONG.set(data, off, value);
+    }
+
+    // --- Sub-range copy (bit offsets need not be word aligned) ---
+    public static long[] slice(long[] words, int fromBit, int nBits) {
+        long[] out = new long[wordsFor(nBits)];
+        int shift = fromBit & 63;
+        int base = fromBit >>> 6;
+        for (int w = 0; w < out.length; w++) {
+            long hi = base + w < words.length ? words[base + w] : 0L;
+            long lo = shift != 0 && base + w + 1 < words.length ? words[base + w + 1] : 0L;
+            out[w] = shift == 0 ? hi : (hi << shift) | (lo >>> (64 - shift));
+        }
+        clearTail(out, nBits);
+        return out;
+    }
+
+    // zero everything past nBits so the "tail is zero" invariant holds
+    public static void clearTail(long[] words, int nBits) {
+        int full = nBits >>> 6;
+        int rem = nBits & 63;
+        if (rem != 0 && full < words.length) {
+            words[full] &= -1L << (64 - rem);
+            full++;
+        }
+        for (int w = full; w < words.length; w++) words[w] = 0L;
+    }
+}
@@ -0,0 +1,130 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs block-independent work (ECB, CBC decryption) across cores on the common ForkJoinPool.
+ * The input is cut into ranges of whole blocks sized to stay cache-resident,
+ * each range goes through the caller's sequential ECB function, and the results
+ * land in a preallocated slot array that is joined once at the end.
+ * Because ranges start on block boundaries, the output is identical to running
+ * the sequential function over the whole input.
+ */
+public final class ParallelBlockEngine {
+
+    // inputs shorter than this (in bits) stay on the calling thread
+    public static final int DEFAULT_THRESHOLD_BITS = Integer.getInteger("encryptocat.parallel.thresholdBits", 1 << 16);
+
+    // bits handled by one task: 32 Kbit = 64 KB of '0'/'1' chars in and about as much out
+    static final int RANGE_BITS = 1 << 15;
+
+    private static volatile int thresholdBits = DEFAULT_THRESHOLD_BITS;
+
+    private ParallelBlockEngine() {
+    }
+
+    // --- Configuration ---
+    public static int getThresholdBits() {
+        return thresholdBits;
+    }
+
+    public static void setThresholdBits(int bits) {
+        if (bits < 0) throw new IllegalArgumentException("threshold must be non-negative");
+        thresholdBits = bits;
+    }
+
+    public static boolean isParallel(int nBits) {
+        return nBits >= thresholdBits;
+    }
+
+    // --- ECB ---
+    // sequentialEcb must treat its argument as a run of whole blocks (the last one possibly short)
+    public static String ecb(String bits, int blockSizeBits, UnaryOperator<String> sequentialEcb) {
+        return runRanges(bits.length(), blockSizeBits, (start, end) -> sequentialEcb.apply(bits.substring(start, end)));
+    }
+
+    // --- CBC decryption ---
+    // P_i = D(C_i) xor C_(i-1): every range ECB-decrypts its blocks independently, then XORs the result
+    // with the ciphertext shifted by one block (the IV in front) in a single pass over packed words.
+    // prevBits is the IV already padded to blockSizeBits.
+    public static String cbcDecrypt(String cipherBits, String prevBits, int blockSizeBits, UnaryOperator<String> sequentialEcbDecrypt) {
+        return runRanges(cipherBits.length(), blockSizeBits, (start, end) -> {
+            int nBlocks = (end - start + blockSizeBits - 1) / blockSizeBits;
+            if (nBlocks == 0) return "";
+            String decrypted = sequentialEcbDecrypt.apply(cipherBits.substring(start, end));
+            String first = start == 0 ? prevBits : cipherBits.substring(start - blockSizeBits, start);
+            String chain = first + cipherBits.substring(start, start + (nBlocks - 1) * blockSizeBits);
+
+            int outLen = decrypted.length() / nBlocks;
+            if (outLen == blockSizeBits) {
+                long[] xored = EncryptionMode.xorBits(PackedBits.fromBits(decrypted), PackedBits.fromBits(chain));
+                return PackedBits.toBits(xored, nBlocks * blockSizeBits);
+            }
+            // block function that changes the block length: chain block by block like cbcDecrypt does
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < nBlocks; i++) {
+                out.append(EncryptionMode.xorBits(decrypted.substring(i * outLen, (i + 1) * outLen),
+                        chain.substring(i * blockSizeBits, (i + 1) * blockSizeBits)));
+            }
+            return out.toString();
+        });
+    }
+
+    // --- Range scheduling ---
+    @FunctionalInterface
+    interface RangeFunction {
+        String apply(int startBit, int endBit);
+    }
+
+    static String runRanges(int nBits, int blockSizeBits, RangeFunction fn) {
+        int blocksPerRange = Math.max(1, RANGE_BITS / blockSizeBits);
+        long rangeBits = (long) blocksPerRange * blockSizeBits;
+        int nRanges = (int) ((nBits + rangeBits - 1) / rangeBits);
+        if (nRanges <= 1 || !isParallel(nBits)) {
+            return fn.apply(0, nBits);
+        }
+
+        String[] parts = new String[nRanges];
+        ForkJoinPool.commonPool().invoke(new RangeTask(nBits, (int) rangeBits, parts, 0, nRanges, fn));
+
+        int total = 0;
+        for (String p : parts) total += p.length();
+        StringBuilder out = new StringBuilder(total);
+        for (String p : parts) out.append(p);
+        return out.toString();
+    }
+
+    // tasks live only inside one invoke() and are never serialized
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+        private final int nBits;
+        private final int rangeBits;
+        private final String[] parts;
+        private final int from;
+        private final int to;
+        private final RangeFunction fn;
+
+        RangeTask(int nBits, int rangeBits, String[] parts, int from, int to, RangeFunction fn) {
+            this.nBits = nBits;
+            this.rangeBits = rangeBits;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+            this.fn = fn;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(nBits, rangeBits, parts, from, mid, fn),
+                        new RangeTask(nBits, rangeBits, parts, mid, to, fn));
+                return;
+            }
+            int start = from * rangeBits;
+            parts[from] = fn.apply(start, Math.min(nBits, start + rangeBits));
+        }
+    }
+}
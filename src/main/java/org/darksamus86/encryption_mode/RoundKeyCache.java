@@ -0,0 +1,95 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of expanded round-key schedules (generateRoundKeys results),
+ * keyed by key material, round count and round-key size.
+ * Thread-safe; expansion runs outside the lock, so two threads missing on the same key
+ * may both expand it once, and the first result wins.
+ */
+public final class RoundKeyCache {
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final RoundKeyCache SHARED = new RoundKeyCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<String>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RoundKeyCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<String>> eldest) {
+                if (size() > RoundKeyCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // process-wide cache used by FeistelCipher
+    public static RoundKeyCache shared() {
+        return SHARED;
+    }
+
+    // --- Lookup ---
+    public List<String> roundKeys(String keyBits, int numRounds, int roundKeySize) {
+        Key key = new Key(keyBits, numRounds, roundKeySize);
+        synchronized (entries) {
+            List<String> cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        List<String> expanded = List.copyOf(EncryptionMode.generateRoundKeys(keyBits, numRounds, roundKeySize));
+        synchronized (entries) {
+            List<String> raced = entries.putIfAbsent(key, expanded);
+            return raced != null ? raced : expanded;
+        }
+    }
+
+    // --- Statistics ---
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private record Key(String keyBits, int numRounds, int roundKeySize) {
+    }
+}
@@ -0,0 +1,63 @@
+package org.darksamus86.encryption_mode;
+
+import java.util.Map;
+
+/**
+ * Byte-wide substitution built from EncryptionMode.SBOX_HEX:
+ * each 256-entry table substitutes both nibbles of a byte in one lookup,
+ * so a packed 64-bit word takes 8 lookups instead of 16 map queries.
+ */
+public final class SBoxEngine {
+
+    private static final byte[] FORWARD = buildByteTable(EncryptionMode.SBOX_HEX);
+    private static final byte[] INVERSE = buildByteTable(EncryptionMode.INV_SBOX_HEX);
+
+    private SBoxEngine() {
+    }
+
+    private static byte[] buildByteTable(Map<Integer, Integer> sbox) {
+        byte[] table = new byte[256];
+        for (int b = 0; b < 256; b++) {
+            int hi = sbox.getOrDefault(b >>> 4, 0);
+            int lo = sbox.getOrDefault(b & 0xF, 0);
+            table[b] = (byte) ((hi << 4) | lo);
+        }
+        return table;
+    }
+
+    // --- one full word (16 nibbles) ---
+    public static long substitute(long word, boolean inverse) {
+        return substituteWord(word, inverse ? INVERSE : FORWARD);
+    }
+
+    private static long substituteWord(long w, byte[] t) {
+        return (t[(int) (w >>> 56) & 0xFF] & 0xFFL) << 56
+                | (t[(int) (w >>> 48) & 0xFF] & 0xFFL) << 48
+                | (t[(int) (w >>> 40) & 0xFF] & 0xFFL) << 40
+                | (t[(int) (w >>> 32) & 0xFF] & 0xFFL) << 32
+                | (t[(int) (w >>> 24) & 0xFF] & 0xFFL) << 24
+                | (t[(int) (w >>> 16) & 0xFF] & 0xFFL) << 16
+                | (t[(int) (w >>> 8) & 0xFF] & 0xFFL) << 8
+                | (t[(int) w & 0xFF] & 0xFFL);
+    }
+
+    // --- first nNibbles nibbles of a packed array, in place; the rest is left untouched ---
+    public static void substitute(long[] words, int nNibbles, boolean inverse) {
+        byte[] t = inverse ? INVERSE : FORWARD;
+        int full = nNibbles >>> 4;
+        for (int w = 0; w < full; w++) {
+            words[w] = substituteWord(words[w], t);
+        }
+        int rem = nNibbles & 15;
+        if (rem != 0) {
+            long keepMask = -1L << (64 - rem * 4);
+            long w = words[full];
+            words[full] = (substituteWord(w, t) & keepMask) | (w & ~keepMask);
+        }
+    }
+
+    // --- single byte (two nibbles) ---
+    public static int substituteByte(int b, boolean inverse) {
+        return (inverse ? INVERSE : FORWARD)[b & 0xFF] & 0xFF;
+    }
+}
@@ -0,0 +1,27 @@
+package org.darksamus86.encryption_mode;
+
+/**
+ * Plain loops over long words with the byte-wide SBoxEngine tables. Always available.
+ */
+final class ScalarBlockOps implements BlockOps {
+
+    static final ScalarBlockOps INSTANCE = new ScalarBlockOps();
+
+    private ScalarBlockOps() {
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void xor(long[] a, long[] b, long[] out, int nWords) {
+        for (int i = 0; i < nWords; i++) out[i] = a[i] ^ b[i];
+    }
+
+    @Override
+    public void substitute(long[] words, int nNibbles, boolean inverse) {
+        SBoxEngine.substitute(words, nNibbles, inverse);
+    }
+}
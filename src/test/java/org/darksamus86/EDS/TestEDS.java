@@ -1,7 +1,14 @@
 package org.darksamus86.EDS;
 
+import org.darksamus86.Hash.TreeHash;
 import org.darksamus86.RSA.RSA;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,4 +86,26 @@ public class TestEDS {
         assertEquals(sig1, sig2,
                 "Одинаковое сообщение должно давать одинаковую подпись (детерминированность)");
     }
+
+    // Подпись документа по корню дерева: проверяется по файлу и по дереву, ломается при изменении листа
+    @Test
+    void testSignDocument(@TempDir Path dir) throws Exception {
+        String[] keys = RSA.generateKeys();
+        EDS eds = new EDS(keys[0], keys[1]);
+        byte[] doc = new byte[300_000];
+        new Random(23).nextBytes(doc);
+        Path file = Files.write(dir.resolve("doc.bin"), doc);
+
+        String signature = eds.signDocument(file);
+        assertTrue(eds.verifyDocument(file, signature));
+
+        TreeHash.Tree tree = EDS.documentHash().tree(doc);
+        assertTrue(eds.verifyTree(tree, signature));
+        int last = tree.leafCount() - 1;
+        byte[] leaf = Arrays.copyOfRange(doc, last * TreeHash.DEFAULT_LEAF_BYTES, doc.length);
+        leaf[leaf.length - 1] ^= 1;
+        tree.updateLeaf(last, leaf);
+        assertFalse(eds.verifyTree(tree, signature));
+        assertTrue(eds.verifyTree(tree, eds.signTree(tree)));
+    }
 }
@@ -1,9 +1,14 @@
 package org.darksamus86.FeistelCipher;
 
 import org.darksamus86.encryption_mode.EncryptionMode;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.darksamus86.encryption_mode.PackedBits;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -111,4 +116,73 @@ public class TestFeistel {
         assertNotEquals(message, decrypted,
                 "Расшифровка неверным ключом НЕ должна выдавать исходное сообщение");
     }
+
+    // ===================== РЕЖИМ CTR ========================
+
+    @Test
+    void testCtrEncryptDecrypt() {
+        String key = generateKeyHex();
+        String iv = EncryptionMode.generateIV(512);
+        String message = "Counter mode for Feistel, " + "x".repeat(200);
+
+        String cipher = FeistelCipher.ctrEncrypt(message, key, iv);
+        assertEquals(message.length() * 2, cipher.length(), "CTR не добавляет паддинг");
+        assertEquals(message, FeistelCipher.ctrDecrypt(cipher, key, iv));
+    }
+
+    // ===================== byte[]-API ========================
+
+    @Test
+    void testByteBlockApiMatchesStrings() {
+        String keyBits = EncryptionMode.textToBits(generateKeyHex());
+        List<String> roundKeys = FeistelCipher.roundKeys(keyBits);
+        KeySchedule keys = FeistelCipher.keySchedule(keyBits);
+
+        byte[] data = new byte[64 * 5];
+        new Random(13).nextBytes(data);
+        byte[] cipher = new byte[data.length];
+        FeistelCipher.ecbEncrypt(data, 0, cipher, 0, data.length, keys);
+
+        for (int b = 0; b < 5; b++) {
+            String blockBits = PackedBits.toBits(PackedBits.fromBytes(data, b * 64, 64), 512);
+            String expected = EncryptionMode.feistelEncryptBlock(blockBits, roundKeys);
+            assertEquals(expected, PackedBits.toBits(PackedBits.fromBytes(cipher, b * 64, 64), 512), "блок " + b);
+        }
+
+        // расшифровка на месте
+        FeistelCipher.ecbDecrypt(cipher, 0, cipher, 0, cipher.length, keys);
+        assertArrayEquals(data, cipher);
+        assertThrows(IllegalArgumentException.class, () -> FeistelCipher.ecbEncrypt(data, 0, cipher, 0, 63, keys));
+    }
+
+    // Пакетный API: каждая запись — как отдельный вызов encrypt / decrypt, порядок сохраняется
+    @Test
+    void testEncryptAllMatchesSingleCalls() {
+        String key = "batch-key";
+        Random rnd = new Random(19);
+        List<String> records = new ArrayList<>(List.of("", "a", "Привет", "x".repeat(64)));
+        for (int i = 0; i < 600; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int n = 50 + rnd.nextInt(450); n > 0; n--) sb.append((char) (32 + rnd.nextInt(95)));
+            records.add(sb.toString());
+        }
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(0); // группы записей идут параллельно
+            List<String> encrypted = FeistelCipher.encryptAll(records, key);
+            assertEquals(records.size(), encrypted.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(FeistelCipher.encrypt(records.get(i), key), encrypted.get(i), "запись " + i);
+            }
+
+            List<String> hexes = List.of(encrypted.get(5), encrypted.get(3), "ABC", "");
+            List<String> decrypted = FeistelCipher.decryptAll(hexes, key);
+            for (int i = 0; i < hexes.size(); i++) {
+                assertEquals(FeistelCipher.decrypt(hexes.get(i), key), decrypted.get(i), "шифртекст " + i);
+            }
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+    }
 }
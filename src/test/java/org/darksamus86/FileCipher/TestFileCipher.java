@@ -0,0 +1,97 @@
+package org.darksamus86.FileCipher;
+
+import org.darksamus86.SPN.SPN;
+import org.darksamus86.encryption_mode.PackedBits;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.darksamus86.encryption_mode.EncryptionMode.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestFileCipher {
+
+    @TempDir
+    Path dir;
+
+    private byte[] randomBytes(int n) {
+        byte[] data = new byte[n];
+        new Random(n).nextBytes(data);
+        return data;
+    }
+
+    private byte[] roundTrip(byte[] data, FileCipher.Algorithm algorithm, String key, String ivHex) throws IOException {
+        Path plain = dir.resolve("plain.bin");
+        Path cipher = dir.resolve("cipher.bin");
+        Path restored = dir.resolve("restored.bin");
+        Files.write(plain, data);
+        FileCipher.encryptFile(plain, cipher, algorithm, key, ivHex);
+        assertEquals((data.length / 64 + 1) * 64, Files.size(cipher), "Шифртекст дополняется PKCS#7 до 512 бит");
+        FileCipher.decryptFile(cipher, restored, algorithm, key, ivHex);
+        return Files.readAllBytes(restored);
+    }
+
+    // Шифртекст файла совпадает с SPN.ecbEncrypt от pkcs7Pad всего содержимого
+    @Test
+    void testSpnEcbMatchesInMemory() throws IOException {
+        String keyHex = bitsToHex(generateKey(256));
+        byte[] data = randomBytes(3 * FileCipher.CHUNK_BYTES + 100);
+        Path plain = dir.resolve("plain.bin");
+        Path cipher = dir.resolve("cipher.bin");
+        Files.write(plain, data);
+        FileCipher.encryptFile(plain, cipher, FileCipher.Algorithm.SPN_ECB, keyHex, null);
+
+        List<String> roundKeys = SPN.roundKeys(hexToBits(keyHex));
+        String bits = pkcs7Pad(PackedBits.toBits(PackedBits.fromBytes(data, 0, data.length), data.length * 8), 512);
+        String expected = SPN.ecbEncrypt(bits, roundKeys);
+        byte[] actual = Files.readAllBytes(cipher);
+        assertEquals(expected, PackedBits.toBits(PackedBits.fromBytes(actual, 0, actual.length), actual.length * 8));
+    }
+
+    // CBC: цепочка проходит через границы кусков, результат совпадает с SPN.cbcEncrypt
+    @Test
+    void testSpnCbcMatchesInMemoryAndRoundTrip() throws IOException {
+        String keyHex = bitsToHex(generateKey(256));
+        String ivHex = bitsToHex(generateIV(128));
+        byte[] data = randomBytes(2 * FileCipher.CHUNK_BYTES + 64);
+        Path plain = dir.resolve("plain.bin");
+        Path cipher = dir.resolve("cipher.bin");
+        Files.write(plain, data);
+        FileCipher.encryptFile(plain, cipher, FileCipher.Algorithm.SPN_CBC, keyHex, ivHex);
+
+        List<String> roundKeys = SPN.roundKeys(hexToBits(keyHex));
+        String bits = pkcs7Pad(PackedBits.toBits(PackedBits.fromBytes(data, 0, data.length), data.length * 8), 512);
+        String expected = SPN.cbcEncrypt(bits, roundKeys, hexToBits(ivHex));
+        byte[] actual = Files.readAllBytes(cipher);
+        assertEquals(expected, PackedBits.toBits(PackedBits.fromBytes(actual, 0, actual.length), actual.length * 8));
+
+        assertArrayEquals(data, roundTrip(data, FileCipher.Algorithm.SPN_CBC, keyHex, ivHex));
+    }
+
+    // Восстановление файлов разной длины, включая пустой и кратный блоку
+    @Test
+    void testRoundTripAllAlgorithms() throws IOException {
+        String keyHex = bitsToHex(generateKey(256));
+        String ivHex = bitsToHex(generateIV(128));
+        for (int n : new int[]{0, 1, 63, 64, 1000, FileCipher.CHUNK_BYTES + 1}) {
+            byte[] data = randomBytes(n);
+            assertArrayEquals(data, roundTrip(data, FileCipher.Algorithm.SPN_ECB, keyHex, null), "SPN ECB, " + n + " байт");
+            assertArrayEquals(data, roundTrip(data, FileCipher.Algorithm.SPN_CBC, keyHex, ivHex), "SPN CBC, " + n + " байт");
+            assertArrayEquals(data, roundTrip(data, FileCipher.Algorithm.FEISTEL, keyHex, null), "Feistel, " + n + " байт");
+        }
+    }
+
+    // Шифртекст некратной длины отвергается
+    @Test
+    void testRejectsTruncatedCiphertext() throws IOException {
+        Path cipher = dir.resolve("bad.bin");
+        Files.write(cipher, new byte[65]);
+        assertThrows(IOException.class, () -> FileCipher.decryptFile(cipher, dir.resolve("out.bin"),
+                FileCipher.Algorithm.SPN_ECB, bitsToHex(generateKey(256)), null));
+    }
+}
@@ -1,6 +1,18 @@
 package org.darksamus86.Hash;
 
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -164,4 +176,148 @@ public class TestHash {
                 Hash.hash("1", "???") // gets encoded as UTF-8 → valid
         );
     }
+
+    // Значения, посчитанные исходной строковой реализацией: таблица 64 КБ и compress32 на int их не меняют
+    @Test
+    void testHashKnownVectors() {
+        assertEquals("11000101111111110000111100001111", Hash.hash("0x12345678", "Hello"));
+        assertEquals("11110101000000000000000000000011", Hash.hash("1", "101"));
+        assertEquals("11101101000101100001010011001101", Hash.hash("255", "0xdeadbeef"));
+        assertEquals("00001100101100010000000000000000", Hash.hash("0x0", "12345"));
+    }
+
+    // Hasher: тот же хеш, что Hash.hash от HEX тех же байт, при любом делении входа на куски
+    @Test
+    void testHasherMatchesHash() throws Exception {
+        Random rnd = new Random(22);
+        for (int len : new int[]{1, 2, 3, 4, 5, 7, 8, 31, 100, 4099}) {
+            byte[] data = new byte[len];
+            rnd.nextBytes(data);
+            String expected = Hash.hash("0x12345678", "0x" + BitCodec.bytesToHex(data, 0, len, false));
+
+            assertEquals(expected, Hasher.of("0x12345678").update(data).digestBits(), "byte[], длина " + len);
+
+            Hasher h = new Hasher(0x12345678);
+            for (int off = 0; off < len; ) {
+                int n = Math.min(len - off, rnd.nextInt(9));
+                h.update(data, off, n);
+                off += n;
+            }
+            assertEquals(len, h.length());
+            assertEquals(expected, h.digestBits(), "куски, длина " + len);
+
+            ByteBuffer little = ByteBuffer.allocateDirect(len + 3).order(ByteOrder.LITTLE_ENDIAN);
+            little.put(new byte[3]).put(data).flip().position(3);
+            assertEquals(expected, h.update(little).digestBits(), "ByteBuffer, длина " + len);
+            assertFalse(little.hasRemaining());
+
+            assertEquals(expected, h.update(new ByteArrayInputStream(data)).digestBits(), "поток, длина " + len);
+        }
+        assertThrows(IllegalStateException.class, () -> new Hasher(1).digest());
+    }
+
+    // Дерево: корень не зависит от пула и источника (byte[], ByteBuffer, файл), узлы — свёртка детей
+    @Test
+    void testTreeHashDeterministicAndStructured(@TempDir Path dir) throws Exception {
+        byte[] data = new byte[1000 * 64 + 13];
+        new Random(23).nextBytes(data);
+        Path file = Files.write(dir.resolve("doc.bin"), data);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int fanOut : new int[]{2, 3, 16}) {
+                TreeHash parallel = new TreeHash(7, 64, fanOut, ForkJoinPool.commonPool());
+                TreeHash sequential = new TreeHash(7, 64, fanOut, single);
+                TreeHash.Tree tree = parallel.tree(data);
+                assertEquals(sequential.hash(data), tree.root(), "fanOut " + fanOut);
+                assertEquals(tree.root(), parallel.tree(ByteBuffer.wrap(data)).root());
+                assertEquals(tree.root(), parallel.hash(file));
+
+                assertEquals(1001, tree.leafCount());
+                assertEquals(1, tree.levelSize(tree.depth() - 1));
+                for (int d = 1; d < tree.depth(); d++) {
+                    assertEquals((tree.levelSize(d - 1) + fanOut - 1) / fanOut, tree.levelSize(d));
+                }
+                // лист — Hasher от метки LEAF и байт листа
+                Hasher leaf = new Hasher(7).update(new byte[4]).update(data, 64, 64);
+                assertEquals(leaf.digest(), tree.node(0, 1));
+            }
+        } finally {
+            single.shutdown();
+        }
+
+        TreeHash th = new TreeHash(7, 64, 2, ForkJoinPool.commonPool());
+        assertEquals(th.hash(new byte[0]), th.hash(Files.write(dir.resolve("empty.bin"), new byte[0])));
+        assertThrows(IllegalArgumentException.class, () -> new TreeHash(0, 6, 2, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> new TreeHash(0, 64, 1, ForkJoinPool.commonPool()));
+    }
+
+    // Изменение одного листа: пересчёт пути даёт тот же корень, что и полный пересчёт
+    @Test
+    void testTreeHashUpdateLeaf() {
+        TreeHash th = new TreeHash(0x12345678, 64, 4, ForkJoinPool.commonPool());
+        byte[] data = new byte[64 * 100 + 5];
+        new Random(24).nextBytes(data);
+        TreeHash.Tree tree = th.tree(data);
+        int untouched = tree.node(1, 0);
+
+        byte[] leaf = Arrays.copyOfRange(data, 64 * 57, 64 * 58);
+        leaf[10] ^= 1;
+        System.arraycopy(leaf, 0, data, 64 * 57, 64);
+        tree.updateLeaf(57, leaf);
+        TreeHash.Tree fresh = th.tree(data);
+        assertEquals(fresh.root(), tree.root());
+        for (int d = 0; d < tree.depth(); d++) {
+            for (int i = 0; i < tree.levelSize(d); i++) assertEquals(fresh.node(d, i), tree.node(d, i), "уровень " + d + ", узел " + i);
+        }
+        assertEquals(untouched, tree.node(1, 0));
+
+        tree.updateLeaf(100, new byte[]{1, 2, 3, 4, 5});
+        assertThrows(IllegalArgumentException.class, () -> tree.updateLeaf(100, new byte[64]));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.updateLeaf(101, new byte[5]));
+    }
+
+    // Хеш файла через отображение в память: тот же результат, что Hash.hash от HEX содержимого
+    @Test
+    void testHashFileMatchesHash(@TempDir Path dir) throws Exception {
+        Random rnd = new Random(24);
+        for (int len : new int[]{1, 3, 4, 1001, 70_000}) {
+            byte[] data = new byte[len];
+            rnd.nextBytes(data);
+            Path file = Files.write(dir.resolve("f" + len), data);
+            String hex = BitCodec.bytesToHex(data, 0, len, false);
+            assertEquals(Hash.hash("0x12345678", "0x" + hex), Hash.hashFile(file, "0x12345678"), "длина " + len);
+            assertEquals(new Hasher(255).update(data).digest(), Hash.hashFile(file, 255));
+            assertEquals(Hash.hashFile(file, 255), Hash.hashFile(file, 255, 4096), "окна по 4 КБ, длина " + len);
+            assertEquals(Hash.hashFile(file, 255), Hash.hashFile(file, 255, 6), "окна по 6 байт, длина " + len);
+        }
+        Path empty = Files.write(dir.resolve("empty"), new byte[0]);
+        assertThrows(IllegalArgumentException.class, () -> Hash.hashFile(empty, 1));
+    }
+
+    // Пакет: результат каждого сообщения равен Hasher, в том числе в неполных группах и параллельно
+    @Test
+    void testHashAllMatchesHasher() {
+        Random rnd = new Random(25);
+        byte[][] messages = new byte[3 * Hash.MESSAGES_PER_TASK + 5][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new byte[1 + rnd.nextInt(i % 50 == 0 ? 3000 : 64)]; // есть и длиннее MAX_SORTED_WORDS слов
+            rnd.nextBytes(messages[i]);
+        }
+        int[] expected = new int[messages.length];
+        for (int i = 0; i < messages.length; i++) expected[i] = new Hasher(0x12345678).update(messages[i]).digest();
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE);
+            assertArrayEquals(expected, Hash.hashAll(0x12345678, messages));
+            ParallelBlockEngine.setThresholdBits(0);
+            assertArrayEquals(expected, Hash.hashAll(0x12345678, Arrays.asList(messages)));
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+        assertArrayEquals(new int[0], Hash.hashAll(1, new byte[0][]));
+        assertArrayEquals(Arrays.copyOf(expected, 3), Hash.hashAll(0x12345678, Arrays.copyOf(messages, 3)));
+        assertThrows(IllegalArgumentException.class, () -> Hash.hashAll(1, new byte[][]{{1}, {}}));
+    }
 }
@@ -1,7 +1,21 @@
 package org.darksamus86.SPN;
 
+import org.darksamus86.encryption_mode.AuthenticatedMode;
+import org.darksamus86.encryption_mode.BatchCipher;
+import org.darksamus86.encryption_mode.BlockCipher;
+import org.darksamus86.encryption_mode.CtrMode;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.darksamus86.encryption_mode.ModeEngine;
+import org.darksamus86.encryption_mode.PackedBits;
+import org.darksamus86.encryption_mode.ParallelBlockEngine;
 import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.darksamus86.encryption_mode.EncryptionMode.*;   // <-- ВАЖНО!
@@ -132,4 +146,442 @@ class TestSPN {
 
         assertEquals(plaintext, restored);
     }
+
+    // Параллельный ECB должен давать тот же результат, что и последовательный
+    @Test
+    void testParallelECBMatchesSequential() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        String bits = generateKey(512 * 200 + 77);
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE);
+            String sequential = SPN.ecbEncrypt(bits, roundKeys);
+            ParallelBlockEngine.setThresholdBits(0);
+            String parallel = SPN.ecbEncrypt(bits, roundKeys);
+
+            assertEquals(sequential, parallel);
+            assertEquals(bits + "0".repeat(512 - 77), SPN.ecbDecrypt(parallel, roundKeys));
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+    }
+
+    // Параллельная CBC-расшифровка должна совпадать с последовательной
+    @Test
+    void testParallelCBCDecryptMatchesSequential() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        String bits = pkcs7Pad(generateKey(8 * 9000), 512);
+        String iv = generateIV(128);
+        String cipherBits = SPN.cbcEncrypt(bits, roundKeys, iv);
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE);
+            String sequential = SPN.cbcDecrypt(cipherBits, roundKeys, iv);
+            ParallelBlockEngine.setThresholdBits(0);
+            String parallel = SPN.cbcDecrypt(cipherBits, roundKeys, iv);
+
+            assertEquals(bits, sequential);
+            assertEquals(sequential, parallel);
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+    }
+
+    // CTR режим: шифрование/расшифрование без паддинга
+    @Test
+    void testCTREncryptDecrypt() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+
+        String bits = detectAndConvertToBits("TEST CTR MODE");
+        String iv = generateIV(128);
+
+        String cipherBits = SPN.ctrEncrypt(bits, roundKeys, iv);
+        assertEquals(bits.length(), cipherBits.length(), "CTR не меняет длину сообщения");
+        assertNotEquals(bits, cipherBits);
+        assertEquals(bits, SPN.ctrDecrypt(cipherBits, roundKeys, iv));
+    }
+
+    // CTR: произвольный фрагмент расшифровывается без обработки предыдущих данных
+    @Test
+    void testCTRSeek() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        String bits = generateKey(512 * 10);
+        String iv = generateIV(128);
+        String cipherBits = SPN.ctrEncrypt(bits, roundKeys, iv);
+
+        var ctr = SPN.ctr(roundKeys, iv);
+        ctr.seek(8 * 300);
+        String part = ctr.process(cipherBits.substring(8 * 300, 8 * 420));
+        assertEquals(bits.substring(8 * 300, 8 * 420), part);
+        assertEquals(8 * 420, ctr.position());
+
+        // продолжение с текущей позиции
+        assertEquals(bits.substring(8 * 420, 8 * 421), ctr.process(cipherBits.substring(8 * 420, 8 * 421)));
+    }
+
+    // Потоковое шифрование совпадает с ecbEncrypt(pkcs7Pad(...)) и обратимо
+    @Test
+    void testStreamsECB() throws Exception {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        byte[] data = new byte[10_000];
+        new Random(7).nextBytes(data);
+
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (SPNOutputStream out = new SPNOutputStream(sink, roundKeys)) {
+            out.write(data, 0, 123);
+            out.write(data, 123, data.length - 123);
+        }
+        byte[] cipher = sink.toByteArray();
+
+        String expected = SPN.ecbEncrypt(pkcs7Pad(bytesToBits(data), 512), roundKeys);
+        assertEquals(expected, bytesToBits(cipher));
+
+        try (SPNInputStream in = new SPNInputStream(new ByteArrayInputStream(cipher), roundKeys)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    // CBC-потоки: длина кратна буферу, паддинг — целый блок
+    @Test
+    void testStreamsCBC() throws Exception {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        String iv = generateIV(128);
+        byte[] data = new byte[64 * 64 * 2];
+        new Random(8).nextBytes(data);
+
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (SPNOutputStream out = new SPNOutputStream(sink, roundKeys, iv)) {
+            for (byte b : data) out.write(b);
+        }
+        byte[] cipher = sink.toByteArray();
+        assertEquals(data.length + 64, cipher.length);
+        assertEquals(SPN.cbcEncrypt(pkcs7Pad(bytesToBits(data), 512), roundKeys, iv), bytesToBits(cipher));
+
+        try (SPNInputStream in = new SPNInputStream(new ByteArrayInputStream(cipher), roundKeys, iv)) {
+            assertEquals(100, in.skip(100));
+            for (int i = 100; i < 200; i++) assertEquals(data[i] & 0xFF, in.read(), "байт " + i);
+            assertArrayEquals(Arrays.copyOfRange(data, 200, data.length), in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    // Булевы схемы S-box совпадают с таблицами SBOX_HEX / INV_SBOX_HEX на всех 16 входах
+    @Test
+    void testBitslicedSboxCircuits() {
+        for (int v = 0; v < 16; v++) {
+            long[] s = new long[4];
+            for (int b = 0; b < 4; b++) s[b] = ((v >> (3 - b)) & 1) == 1 ? -1L : 0L;
+            long[] inv = s.clone();
+            BitslicedSPN.sbox(s, 0);
+            BitslicedSPN.inverseSbox(inv, 0);
+            int out = 0, invOut = 0;
+            for (int b = 0; b < 4; b++) {
+                out = out << 1 | (int) (s[b] & 1);
+                invOut = invOut << 1 | (int) (inv[b] & 1);
+            }
+            assertEquals((int) SBOX_HEX.get(v), out, "S-box, вход " + v);
+            assertEquals((int) INV_SBOX_HEX.get(v), invOut, "обратный S-box, вход " + v);
+        }
+    }
+
+    // Двойное транспонирование возвращает матрицу, бит (i, j) переходит в (j, i)
+    @Test
+    void testTranspose64() {
+        Random rnd = new Random(11);
+        long[] a = new long[64];
+        for (int i = 0; i < 64; i++) a[i] = rnd.nextLong();
+        long[] t = a.clone();
+        BitslicedSPN.transpose64(t, 0);
+        for (int i = 0; i < 64; i++) {
+            for (int j = 0; j < 64; j++) {
+                assertEquals((a[i] >>> (63 - j)) & 1, (t[j] >>> (63 - i)) & 1);
+            }
+        }
+        BitslicedSPN.transpose64(t, 0);
+        assertArrayEquals(a, t);
+    }
+
+    // Битслайсинговый путь (неполная последняя пачка из 64 блоков) совпадает с encryptBlock/decryptBlock
+    @Test
+    void testBitslicedMatchesScalar() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = List.of(key256.substring(0, 128), key256.substring(128), key256.substring(0, 128), key256.substring(128));
+        int nBlocks = BitslicedSPN.LANES + 37;
+        String bits = generateKey(nBlocks * 512 - 100);
+
+        StringBuilder expectedCipher = new StringBuilder();
+        for (String block : splitIntoBlocks(bits, 512)) {
+            if (block.length() < 512) block = block + "0".repeat(512 - block.length());
+            expectedCipher.append(SPN.encryptBlock(block, roundKeys));
+        }
+        int threshold = ParallelBlockEngine.getThresholdBits();
+        ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE); // один диапазон — весь вход идёт в BitslicedSPN
+        try {
+            String cipher = SPN.ecbEncrypt(bits, roundKeys);
+            assertEquals(expectedCipher.toString(), cipher);
+
+            StringBuilder expectedPlain = new StringBuilder();
+            for (String block : splitIntoBlocks(cipher, 512)) expectedPlain.append(SPN.decryptBlock(block, roundKeys));
+            assertEquals(expectedPlain.toString(), SPN.ecbDecrypt(cipher, roundKeys));
+            assertEquals(bits, SPN.ecbDecrypt(cipher, roundKeys).substring(0, bits.length()));
+        } finally {
+            ParallelBlockEngine.setThresholdBits(threshold);
+        }
+    }
+
+    // Строковые ECB/CBC идут через ModeEngine (хвост дополняется нулями до блока) и совпадают с поблочным циклом;
+    // короткие ключи, которые blockCipher не принимает, остаются на строковом пути
+    @Test
+    void testStringModesMatchBlockLoop() {
+        String key256 = generateKey(256);
+        String ivBits = generateIV(128);
+        for (List<String> roundKeys : List.of(
+                SPN.roundKeys(key256),
+                List.of(key256, key256.substring(3), key256.substring(0, 130), key256.substring(100)),
+                List.of(key256.substring(0, 100), key256.substring(128), key256.substring(0, 7), ""))) {
+            String bits = generateKey(3 * 512 + 77);
+
+            StringBuilder ecb = new StringBuilder();
+            StringBuilder cbc = new StringBuilder();
+            String prev = leftPadTo(ivBits, 512);
+            for (String block : splitIntoBlocks(bits, 512)) {
+                if (block.length() < 512) block = block + "0".repeat(512 - block.length());
+                ecb.append(SPN.encryptBlock(block, roundKeys));
+                prev = SPN.encryptBlock(xorBits(block, prev), roundKeys);
+                cbc.append(prev);
+            }
+            assertEquals(ecb.toString(), SPN.ecbEncrypt(bits, roundKeys));
+            assertEquals(cbc.toString(), SPN.cbcEncrypt(bits, roundKeys, ivBits));
+
+            if (roundKeys.get(3).length() >= 128) {
+                assertEquals(bits, SPN.ecbDecrypt(ecb.toString(), roundKeys).substring(0, bits.length()));
+                assertEquals(bits, SPN.cbcDecrypt(cbc.toString(), roundKeys, ivBits).substring(0, bits.length()));
+            }
+        }
+        assertEquals("", SPN.ecbEncrypt("", SPN.roundKeys(key256)));
+    }
+
+    // byte[]-API: блоки, ECB и CBC совпадают со строковыми функциями, в том числе на месте (in == out)
+    @Test
+    void testByteApiMatchesStrings() {
+        String key256 = generateKey(256);
+        List<String> roundKeys = SPN.roundKeys(key256);
+        KeySchedule keys = KeySchedule.of(roundKeys);
+        String ivBits = generateIV(128);
+        byte[] iv = PackedBits.toBytes(PackedBits.fromBits(leftPadTo(ivBits, 512)), 64);
+
+        byte[] data = new byte[64 * 7];
+        new Random(14).nextBytes(data);
+        String bits = bytesToBits(data);
+
+        byte[] out = new byte[data.length + 10];
+        SPN.encryptBlock(data, 64, out, 10, keys);
+        assertEquals(SPN.encryptBlock(bits.substring(512, 1024), roundKeys), bytesToBits(Arrays.copyOfRange(out, 10, 74)));
+
+        byte[] ecb = new byte[data.length];
+        SPN.ecbEncrypt(data, 0, ecb, 0, data.length, keys);
+        assertEquals(SPN.ecbEncrypt(bits, roundKeys), bytesToBits(ecb));
+        SPN.ecbDecrypt(ecb, 0, ecb, 0, ecb.length, keys);
+        assertArrayEquals(data, ecb);
+
+        byte[] cbc = data.clone();
+        SPN.cbcEncrypt(cbc, 0, cbc, 0, cbc.length, keys, iv, 0);
+        assertEquals(SPN.cbcEncrypt(bits, roundKeys, ivBits), bytesToBits(cbc));
+        SPN.cbcDecrypt(cbc, 0, cbc, 0, cbc.length, keys, iv, 0);
+        assertArrayEquals(data, cbc);
+
+        assertThrows(IllegalArgumentException.class, () -> SPN.ecbEncrypt(data, 0, ecb, 0, 65, keys));
+        assertThrows(IllegalArgumentException.class,
+                () -> SPN.encryptBlock(data, 0, ecb, 0, KeySchedule.of(List.of("01", "10", "01", "10"))));
+    }
+
+    // Общий ModeEngine над SPN: CTR совпадает со строковым SPN.ctr, в том числе со сдвигом и неполным блоком
+    @Test
+    void testModeEngineCtrMatchesStrings() {
+        List<String> roundKeys = SPN.roundKeys(generateKey(256));
+        BlockCipher cipher = SPN.blockCipher(roundKeys);
+        String ivBits = generateIV(512);
+        byte[] iv = PackedBits.toBytes(PackedBits.fromBits(ivBits), 64);
+
+        byte[] data = new byte[64 * 3 + 17];
+        new Random(15).nextBytes(data);
+        String bits = bytesToBits(data);
+
+        byte[] ctr = new byte[data.length];
+        ModeEngine.ctr(data, 0, ctr, 0, data.length, cipher, iv, 0);
+        assertEquals(SPN.ctrEncrypt(bits, roundKeys, ivBits), bytesToBits(ctr));
+
+        // с третьего блока потока
+        CtrMode mode = SPN.ctr(roundKeys, ivBits);
+        byte[] tail = new byte[data.length - 128];
+        ModeEngine.ctr(data, 128, tail, 0, tail.length, cipher, iv, 0, 2);
+        assertEquals(mode.process(bits.substring(1024), 1024), bytesToBits(tail));
+
+        ModeEngine.ctr(ctr, 0, ctr, 0, ctr.length, cipher, iv, 0);
+        assertArrayEquals(data, ctr);
+    }
+
+    // Параллельные куски ModeEngine дают тот же результат, что и последовательный проход
+    @Test
+    void testModeEngineParallelMatchesSequential() {
+        BlockCipher cipher = SPN.blockCipher(SPN.roundKeys(generateKey(256)));
+        byte[] iv = new byte[64];
+        new Random(16).nextBytes(iv);
+        byte[] data = new byte[64 * 2500]; // несколько кусков по 64 КБ
+        new Random(17).nextBytes(data);
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE);
+            byte[] ecb = new byte[data.length], cbc = new byte[data.length], ctr = new byte[data.length];
+            ModeEngine.ecbEncrypt(data, 0, ecb, 0, data.length, cipher);
+            ModeEngine.cbcEncrypt(data, 0, cbc, 0, data.length, cipher, iv, 0);
+            ModeEngine.ctr(data, 0, ctr, 0, data.length - 5, cipher, iv, 0);
+
+            ParallelBlockEngine.setThresholdBits(0);
+            byte[] buf = ecb.clone();
+            ModeEngine.ecbDecrypt(buf, 0, buf, 0, buf.length, cipher);
+            assertArrayEquals(data, buf);
+            buf = cbc.clone();
+            ModeEngine.cbcDecrypt(buf, 0, buf, 0, buf.length, cipher, iv, 0);
+            assertArrayEquals(data, buf);
+            buf = new byte[data.length];
+            ModeEngine.ctr(data, 0, buf, 0, data.length - 5, cipher, iv, 0);
+            assertArrayEquals(ctr, buf);
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+    }
+
+    // Пакет записей: PKCS#7 + ECB по каждой записи, расшифровка снимает паддинг
+    @Test
+    void testBatchMatchesEcbPerRecord() {
+        String key256 = generateKey(256);
+        BatchCipher batch = SPN.batch(key256);
+        KeySchedule keys = KeySchedule.of(SPN.roundKeys(key256));
+        Random rnd = new Random(20);
+        byte[][] records = new byte[300][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new byte[i == 0 ? 0 : 50 + rnd.nextInt(450)];
+            rnd.nextBytes(records[i]);
+        }
+
+        byte[][] encrypted = batch.encrypt(records);
+        for (int i = 0; i < records.length; i += 37) {
+            byte[] expected = pkcs7Pad(records[i], 512);
+            SPN.ecbEncrypt(expected, 0, expected, 0, expected.length, keys);
+            assertArrayEquals(expected, encrypted[i], "запись " + i);
+        }
+        byte[][] decrypted = batch.decrypt(encrypted);
+        for (int i = 0; i < records.length; i++) assertArrayEquals(records[i], decrypted[i], "запись " + i);
+
+        assertThrows(IllegalArgumentException.class, () -> batch.decrypt(new byte[][]{new byte[65]}));
+    }
+
+    private static String bytesToBits(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : data) sb.append(String.format("%8s", Integer.toBinaryString(b & 0xFF)).replace(' ', '0'));
+        return sb.toString();
+    }
+
+    // Аутентифицированное шифрование: шифртекст — CTR со старшим битом счётчика, тег ловит изменение шифртекста, тега и nonce
+    @Test
+    void testSealOpenRejectsTampering() throws Exception {
+        KeySchedule keys = KeySchedule.of(SPN.roundKeys(generateKey(256)));
+        byte[] nonce = new byte[64];
+        new Random(20).nextBytes(nonce);
+        nonce[0] &= 0x7F;
+        byte[] counter = nonce.clone();
+        counter[0] |= (byte) 0x80;
+        for (int len : new int[]{0, 1, 63, 64, 65, 200}) {
+            byte[] data = new byte[len];
+            new Random(len).nextBytes(data);
+            byte[] sealed = SPN.seal(data, keys, nonce);
+            assertEquals(len + 64, sealed.length);
+            assertArrayEquals(data, SPN.open(sealed, keys, nonce), "длина " + len);
+
+            byte[] ctr = new byte[len];
+            ModeEngine.ctr(data, 0, ctr, 0, len, SPN.blockCipher(keys), counter, 0);
+            assertArrayEquals(ctr, Arrays.copyOf(sealed, len), "CTR, длина " + len);
+
+            for (int pos : new int[]{0, len / 2, len, sealed.length - 1}) {
+                if (pos >= sealed.length) continue;
+                byte[] forged = sealed.clone();
+                forged[pos] ^= 1;
+                assertThrows(AEADBadTagException.class, () -> SPN.open(forged, keys, nonce), "байт " + pos + ", длина " + len);
+            }
+            byte[] otherNonce = nonce.clone();
+            otherNonce[63] ^= 1;
+            assertThrows(AEADBadTagException.class, () -> SPN.open(sealed, keys, otherNonce));
+        }
+        assertThrows(AEADBadTagException.class, () -> SPN.open(new byte[63], keys, nonce));
+        assertThrows(IllegalArgumentException.class, () -> SPN.seal(new byte[1], keys, counter));
+    }
+
+    // CTR и PMAC на одном ключе: при nonce 0 первый блок гаммы не должен быть L = E(0), иначе из L
+    // получаются все смещения, и два блока шифртекста меняются местами без изменения тега (D_2 ^ D_3 = L)
+    @Test
+    void testSealKeystreamDoesNotRevealOffsets() throws Exception {
+        KeySchedule keys = KeySchedule.of(SPN.roundKeys(generateKey(256)));
+        byte[] leaked = Arrays.copyOf(SPN.seal(new byte[64], keys, new byte[64]), 64);
+        byte[] l = new byte[64];
+        SPN.blockCipher(keys).encryptBlock(l, 0, l, 0);
+        assertFalse(Arrays.equals(l, leaked), "гамма при nonce 0 совпала с L");
+
+        byte[] nonce = new byte[64];
+        nonce[63] = 1;
+        byte[] data = new byte[3 * 64];
+        new Random(23).nextBytes(data);
+        byte[] sealed = SPN.seal(data, keys, nonce);
+        assertThrows(AEADBadTagException.class, () -> SPN.open(swapFirstBlocks(sealed, leaked), keys, nonce));
+        // с настоящим L подмена проходит: поэтому L и не должен попадать в гамму
+        assertEquals(data.length, SPN.open(swapFirstBlocks(sealed, l), keys, nonce).length);
+    }
+
+    // C'_1 = C_2 ^ delta, C'_2 = C_1 ^ delta, остальное (и тег) без изменений
+    private static byte[] swapFirstBlocks(byte[] sealed, byte[] delta) {
+        byte[] forged = sealed.clone();
+        for (int i = 0; i < 64; i++) {
+            forged[i] = (byte) (sealed[64 + i] ^ delta[i]);
+            forged[64 + i] = (byte) (sealed[i] ^ delta[i]);
+        }
+        return forged;
+    }
+
+    // Параллельные куски дают тот же шифртекст и тег; при подделке расшифровка на месте обнуляет буфер
+    @Test
+    void testSealParallelMatchesSequential() throws Exception {
+        BlockCipher cipher = SPN.blockCipher(SPN.roundKeys(generateKey(256)));
+        byte[] nonce = new byte[64];
+        byte[] data = new byte[64 * 2500 + 7]; // несколько кусков по 64 КБ и неполный последний блок
+        new Random(21).nextBytes(nonce);
+        nonce[0] &= 0x7F;
+        new Random(22).nextBytes(data);
+
+        int saved = ParallelBlockEngine.getThresholdBits();
+        try {
+            ParallelBlockEngine.setThresholdBits(Integer.MAX_VALUE);
+            byte[] sequential = AuthenticatedMode.seal(data, cipher, nonce);
+            ParallelBlockEngine.setThresholdBits(0);
+            byte[] parallel = AuthenticatedMode.seal(data, cipher, nonce);
+            assertArrayEquals(sequential, parallel);
+            assertArrayEquals(data, AuthenticatedMode.open(parallel, cipher, nonce));
+
+            byte[] buf = parallel.clone();
+            buf[70_000] ^= 1;
+            assertThrows(AEADBadTagException.class, () ->
+                    AuthenticatedMode.decrypt(buf, 0, buf, 0, data.length, cipher, nonce, 0, buf, data.length));
+            for (int i = 0; i < data.length; i++) assertEquals(0, buf[i], "байт " + i + " должен быть обнулён");
+        } finally {
+            ParallelBlockEngine.setThresholdBits(saved);
+        }
+    }
 }
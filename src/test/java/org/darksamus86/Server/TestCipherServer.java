@@ -0,0 +1,161 @@
+package org.darksamus86.Server;
+
+import org.darksamus86.EDS.EDS;
+import org.darksamus86.FeistelCipher.FeistelCipher;
+import org.darksamus86.Hash.Hash;
+import org.darksamus86.RSA.RSA;
+import org.darksamus86.SPN.SPN;
+import org.darksamus86.StreamCipher.StreamCipher;
+import org.darksamus86.encryption_mode.BitCodec;
+import org.darksamus86.encryption_mode.KeySchedule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.darksamus86.encryption_mode.EncryptionMode.pkcs7Pad;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCipherServer {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    private CipherServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = CipherServer.start(LOOPBACK, 0);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.close();
+    }
+
+    private CipherClient client() throws IOException {
+        return new CipherClient(LOOPBACK, server.port());
+    }
+
+    // Каждая операция возвращает то же, что прямой вызов библиотеки
+    @Test
+    void testOperationsMatchLibrary() throws IOException {
+        Random rnd = new Random(21);
+        byte[] key = new byte[32], iv = new byte[64], data = new byte[200];
+        rnd.nextBytes(key);
+        rnd.nextBytes(iv);
+        rnd.nextBytes(data);
+        KeySchedule keys = KeySchedule.of(SPN.roundKeys(BitCodec.bytesToBits(key, 0, key.length)));
+
+        try (CipherClient c = client()) {
+            byte[] ecb = c.call(Operation.SPN_ECB_ENCRYPT, key, data);
+            byte[] expected = pkcs7Pad(data, 512);
+            SPN.ecbEncrypt(expected, 0, expected, 0, expected.length, keys);
+            assertArrayEquals(expected, ecb);
+            assertArrayEquals(data, c.call(Operation.SPN_ECB_DECRYPT, key, ecb));
+
+            byte[] cbc = c.call(Operation.SPN_CBC_ENCRYPT, key, iv, data);
+            expected = pkcs7Pad(data, 512);
+            SPN.cbcEncrypt(expected, 0, expected, 0, expected.length, keys, iv, 0);
+            assertArrayEquals(expected, cbc);
+            assertArrayEquals(data, c.call(Operation.SPN_CBC_DECRYPT, key, iv, cbc));
+
+            String feistel = c.callText(Operation.FEISTEL_ENCRYPT, "ключ", "Hello, server");
+            assertEquals(FeistelCipher.encrypt("Hello, server", "ключ"), feistel);
+            assertEquals(FeistelCipher.decrypt(feistel, "ключ"), c.callText(Operation.FEISTEL_DECRYPT, "ключ", feistel));
+
+            String streamKey = "0123456789abcdef";
+            String stream = c.callText(Operation.STREAM_ENCRYPT, streamKey, "stream text");
+            assertEquals(StreamCipher.encrypt("stream text", streamKey), stream);
+            assertEquals("stream text", c.callText(Operation.STREAM_DECRYPT, streamKey, stream));
+
+            assertEquals(Hash.hash("0x12345678", "message"), c.callText(Operation.HASH, "0x12345678", "message"));
+
+            String[] rsa = RSA.generateKeys();
+            String signature = c.callText(Operation.EDS_SIGN, rsa[1], "подписать");
+            assertEquals(new EDS(rsa[0], rsa[1]).signMessage("подписать"), signature);
+            byte[] ok = c.call(Operation.EDS_VERIFY, utf8(rsa[0]), utf8("подписать"), utf8(signature));
+            assertArrayEquals(new byte[]{1}, ok);
+            byte[] bad = c.call(Operation.EDS_VERIFY, utf8(rsa[0]), utf8("подделка"), utf8(signature));
+            assertArrayEquals(new byte[]{0}, bad);
+        }
+    }
+
+    // Конвейер: запросы уходят подряд, ответы приходят в том же порядке с теми же id
+    @Test
+    void testPipelinedRequestsAnswerInOrder() throws IOException {
+        try (CipherClient c = client()) {
+            int n = 500;
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) ids[i] = c.send(Operation.HASH, utf8("0x1"), utf8("msg" + i));
+            c.flush();
+            for (int i = 0; i < n; i++) {
+                CipherClient.Response r = c.receive();
+                assertEquals(ids[i], r.id());
+                assertEquals(Hash.hash("0x1", "msg" + i), new String(r.result(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    // Ошибка операции не рвёт соединение
+    @Test
+    void testErrorsKeepConnectionOpen() throws IOException {
+        try (CipherClient c = client()) {
+            IOException e = assertThrows(IOException.class, () -> c.call(Operation.SPN_ECB_ENCRYPT, new byte[5], new byte[1]));
+            assertTrue(e.getMessage().contains("32"), e.getMessage());
+            assertThrows(IOException.class, () -> c.call(Operation.HASH, utf8("0x1")));
+            assertThrows(IOException.class, () -> c.callText(Operation.HASH, "0x1", ""));
+            assertEquals(Hash.hash("0x1", "after"), c.callText(Operation.HASH, "0x1", "after"));
+        }
+    }
+
+    // Кадр, объявивший максимальную длину и оборванный на первых байтах, закрывает только своё соединение
+    @Test
+    void testTruncatedLargeFrameClosesConnection() throws IOException {
+        try (Socket raw = new Socket(LOOPBACK, server.port())) {
+            DataOutputStream out = new DataOutputStream(raw.getOutputStream());
+            out.writeInt(Protocol.MAX_FRAME_BYTES);
+            out.write(new byte[100]);
+            out.flush();
+            raw.shutdownOutput();
+            assertEquals(-1, raw.getInputStream().read());
+        }
+        try (CipherClient c = client()) {
+            assertEquals(Hash.hash("0x3", "next"), c.callText(Operation.HASH, "0x3", "next"));
+        }
+    }
+
+    // Много одновременных соединений, каждое в своём виртуальном потоке на обеих сторонах
+    @Test
+    void testManyConcurrentConnections() throws Exception {
+        int n = 2000;
+        List<CipherClient> clients = new ArrayList<>(n);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) clients.add(client());
+            List<Future<String>> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                CipherClient c = clients.get(i);
+                String msg = "client" + i;
+                results.add(pool.submit(() -> c.callText(Operation.HASH, "0x2", msg)));
+            }
+            for (int i = 0; i < n; i++) assertEquals(Hash.hash("0x2", "client" + i), results.get(i).get());
+            assertEquals(n, server.connectionCount());
+        } finally {
+            for (CipherClient c : clients) c.close();
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
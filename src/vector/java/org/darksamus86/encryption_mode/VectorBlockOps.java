@@ -0,0 +1,75 @@
+package org.darksamus86.encryption_mode;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector implementation: XOR and the nibble S-box on whole vector registers.
+ * Array tails (e.g. a 128-bit SPN sub-block in a 512-bit register) use masked loads and stores.
+ * The S-box is a 16-entry in-register table lookup (selectFrom) applied to the low
+ * and high nibble of every byte. Byte order inside a word does not matter because each
+ * byte is substituted on its own.
+ *
+ * Built only with the Maven profile -Pvector; instantiated only through BlockBackend, and only when
+ * the module is present (--add-modules jdk.incubator.vector).
+ */
+final class VectorBlockOps implements BlockOps {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    private final ByteVector forward = table(false);
+    private final ByteVector inverse = table(true);
+
+    VectorBlockOps() {
+        if (BYTES.length() < 16 || BYTES.vectorBitSize() != LONGS.vectorBitSize()) {
+            throw new UnsupportedOperationException("vector registers too narrow for a 16-entry table");
+        }
+    }
+
+    // the 16 S-box outputs repeated across the register
+    private static ByteVector table(boolean inverse) {
+        byte[] t = new byte[BYTES.length()];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (byte) (inverse ? EncryptionMode.INV_SBOX_HEX : EncryptionMode.SBOX_HEX).getOrDefault(i & 15, 0).intValue();
+        }
+        return ByteVector.fromArray(BYTES, t, 0);
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+
+    @Override
+    public void xor(long[] a, long[] b, long[] out, int nWords) {
+        for (int i = 0; i < nWords; i += LONGS.length()) {
+            VectorMask<Long> m = LONGS.indexInRange(i, nWords);
+            LongVector.fromArray(LONGS, a, i, m)
+                    .lanewise(VectorOperators.XOR, LongVector.fromArray(LONGS, b, i, m))
+                    .intoArray(out, i, m);
+        }
+    }
+
+    @Override
+    public void substitute(long[] words, int nNibbles, boolean inverse) {
+        ByteVector table = inverse ? this.inverse : forward;
+        int full = nNibbles >>> 4;
+        for (int i = 0; i < full; i += LONGS.length()) {
+            VectorMask<Long> m = LONGS.indexInRange(i, full);
+            ByteVector b = LongVector.fromArray(LONGS, words, i, m).reinterpretAsBytes();
+            ByteVector lo = b.and((byte) 0x0F).selectFrom(table);
+            ByteVector hi = b.lanewise(VectorOperators.LSHR, 4).and((byte) 0x0F).selectFrom(table);
+            hi.lanewise(VectorOperators.LSHL, 4).or(lo).reinterpretAsLongs().intoArray(words, i, m);
+        }
+        int rem = nNibbles & 15;
+        if (rem != 0) {
+            long keepMask = -1L << (64 - rem * 4);
+            long w = words[full];
+            words[full] = (SBoxEngine.substitute(w, inverse) & keepMask) | (w & ~keepMask);
+        }
+    }
+}